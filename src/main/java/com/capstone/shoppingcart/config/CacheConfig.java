@@ -0,0 +1,43 @@
+package com.capstone.shoppingcart.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-memory (Caffeine) caches for hot read paths.
+ * Caches are bounded by size and TTL and record statistics, which actuator publishes as
+ * cache.gets / cache.puts / cache.evictions metrics and under /actuator/caches.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // ProductResponseDto by product id
+    public static final String PRODUCTS = "products";
+
+    @Value("${app.cache.products.max-size:10000}")
+    private long productsMaxSize;
+
+    @Value("${app.cache.products.ttl:10m}")
+    private Duration productsTtl;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(productsMaxSize)
+                .expireAfterWrite(productsTtl)
+                .recordStats());
+        // Fixed cache names: created up front so metrics are bound at startup
+        cacheManager.setCacheNames(List.of(PRODUCTS));
+        return cacheManager;
+    }
+}
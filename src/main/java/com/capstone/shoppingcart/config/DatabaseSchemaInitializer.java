@@ -0,0 +1,184 @@
+package com.capstone.shoppingcart.config;
+
+import com.capstone.shoppingcart.entities.CartItem;
+import com.capstone.shoppingcart.entities.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Applies PostgreSQL-specific schema objects that Hibernate's ddl-auto cannot express
+ * (generated columns, GIN indexes, ...). Every statement is idempotent so it is safe to
+ * run on each startup. Runs before DataSeeder.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseSchemaInitializer implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSchemaInitializer.class);
+
+    private static final List<SchemaStatement> STATEMENTS = Stream.of(List.of(
+            // Full-text search: product name is weighted above description
+            new SchemaStatement("products.search_vector",
+                    "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                    "GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('simple'::regconfig, coalesce(name, '')), 'A') || " +
+                    "setweight(to_tsvector('simple'::regconfig, coalesce(description, '')), 'B')" +
+                    ") STORED"),
+            new SchemaStatement("idx_products_search_vector",
+                    "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)"),
+            // Typo-tolerant search (word_similarity / <% operator on lower(name))
+            new SchemaStatement("pg_trgm",
+                    "CREATE EXTENSION IF NOT EXISTS pg_trgm"),
+            new SchemaStatement("idx_products_name_trgm",
+                    "CREATE INDEX IF NOT EXISTS idx_products_name_trgm ON products USING GIN (lower(name) gin_trgm_ops)"),
+            // Hourly view / cart-add counts for trending products, written in batches with ON CONFLICT upserts
+            new SchemaStatement("product_activity_buckets",
+                    "CREATE TABLE IF NOT EXISTS product_activity_buckets (" +
+                    "product_id BIGINT NOT NULL, " +
+                    "bucket_start TIMESTAMP NOT NULL, " +
+                    "views BIGINT NOT NULL DEFAULT 0, " +
+                    "cart_adds BIGINT NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (product_id, bucket_start))"),
+            new SchemaStatement("idx_product_activity_buckets_start",
+                    "CREATE INDEX IF NOT EXISTS idx_product_activity_buckets_start ON product_activity_buckets (bucket_start)"),
+            // "Frequently bought together": pair counts (both directions) and the product set each cart was counted with
+            new SchemaStatement("product_cooccurrence",
+                    "CREATE TABLE IF NOT EXISTS product_cooccurrence (" +
+                    "product_id BIGINT NOT NULL, " +
+                    "related_product_id BIGINT NOT NULL, " +
+                    "carts INT NOT NULL, " +
+                    "PRIMARY KEY (product_id, related_product_id))"),
+            new SchemaStatement("cooccurrence_cart_state",
+                    "CREATE TABLE IF NOT EXISTS cooccurrence_cart_state (" +
+                    "cart_id UUID PRIMARY KEY, " +
+                    "updated_at TIMESTAMP NOT NULL, " +
+                    "product_ids BIGINT[] NOT NULL)"),
+            // Tombstones for deleted wish lists (every delete path, including cascades), read incrementally
+            // by the also-wishlisted refresh, which would otherwise have to list all wish list ids
+            new SchemaStatement("wish_list_deletions",
+                    "CREATE TABLE IF NOT EXISTS wish_list_deletions (" +
+                    "wish_list_id UUID PRIMARY KEY, " +
+                    "deleted_at TIMESTAMP NOT NULL)"),
+            new SchemaStatement("idx_wish_list_deletions_deleted_at",
+                    "CREATE INDEX IF NOT EXISTS idx_wish_list_deletions_deleted_at ON wish_list_deletions (deleted_at)"),
+            new SchemaStatement("record_wish_list_deletion",
+                    "CREATE OR REPLACE FUNCTION record_wish_list_deletion() RETURNS trigger AS $$ BEGIN " +
+                    "INSERT INTO wish_list_deletions (wish_list_id, deleted_at) VALUES (OLD.wish_list_id, localtimestamp) " +
+                    "ON CONFLICT (wish_list_id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at; " +
+                    "RETURN OLD; END $$ LANGUAGE plpgsql"),
+            new SchemaStatement("wish_lists_record_deletion.drop",
+                    "DROP TRIGGER IF EXISTS wish_lists_record_deletion ON wish_lists"),
+            new SchemaStatement("wish_lists_record_deletion",
+                    "CREATE TRIGGER wish_lists_record_deletion AFTER DELETE ON wish_lists " +
+                    "FOR EACH ROW EXECUTE FUNCTION record_wish_list_deletion()"),
+            new SchemaStatement("idx_carts_updated_at",
+                    "CREATE INDEX IF NOT EXISTS idx_carts_updated_at ON carts (updated_at, cart_id)"),
+            // One cart per user and one line per product, so cart creation and add-to-cart can be
+            // ON CONFLICT upserts. Duplicates left by the old read-then-insert code are merged first:
+            // extra carts hand their items to the user's oldest cart, then duplicate lines are summed
+            // into the lowest item id. Merged carts get their summary reset for the backfill below.
+            new SchemaStatement("carts.merge_duplicates",
+                    "WITH ranked AS (" +
+                    "SELECT cart_id, first_value(cart_id) OVER (PARTITION BY user_id ORDER BY created_at, cart_id) AS keeper " +
+                    "FROM carts), " +
+                    "moved AS (" +
+                    "UPDATE cart_items ci SET cart_id = r.keeper FROM ranked r " +
+                    "WHERE ci.cart_id = r.cart_id AND r.cart_id <> r.keeper RETURNING r.keeper), " +
+                    "reset AS (" +
+                    "UPDATE carts SET subtotal_cents = NULL WHERE cart_id IN (SELECT keeper FROM moved)) " +
+                    "DELETE FROM carts c USING ranked r WHERE c.cart_id = r.cart_id AND r.cart_id <> r.keeper"),
+            new SchemaStatement("cart_items.merge_duplicates",
+                    "WITH lines AS (" +
+                    "SELECT cart_item_id, cart_id, " +
+                    "min(cart_item_id) OVER (PARTITION BY cart_id, product_id) AS keep, " +
+                    "sum(quantity) OVER (PARTITION BY cart_id, product_id) AS total " +
+                    "FROM cart_items), " +
+                    "removed AS (" +
+                    "DELETE FROM cart_items ci USING lines l " +
+                    "WHERE ci.cart_item_id = l.cart_item_id AND l.cart_item_id <> l.keep RETURNING l.cart_id), " +
+                    "reset AS (" +
+                    "UPDATE carts SET subtotal_cents = NULL WHERE cart_id IN (SELECT cart_id FROM removed)) " +
+                    "UPDATE cart_items ci SET quantity = l.total FROM lines l " +
+                    "WHERE ci.cart_item_id = l.keep AND l.cart_item_id = l.keep AND ci.quantity <> l.total"),
+            new SchemaStatement("uq_carts_user_id",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uq_carts_user_id ON carts (user_id)"),
+            new SchemaStatement("uq_cart_items_cart_product",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS uq_cart_items_cart_product ON cart_items (cart_id, product_id)"),
+            // Cart summary columns for carts created before they existed (see Cart.recomputeSummary)
+            new SchemaStatement("carts.summary_backfill",
+                    "UPDATE carts c SET line_count = coalesce(s.lines, 0), " +
+                    "total_quantity = coalesce(s.quantity, 0), subtotal_cents = coalesce(s.cents, 0) " +
+                    "FROM carts c2 LEFT JOIN (" +
+                    "SELECT cart_id, count(*) AS lines, sum(quantity) AS quantity, " +
+                    "sum(round(price::numeric * 100)::bigint * quantity) AS cents " +
+                    "FROM cart_items GROUP BY cart_id) s ON s.cart_id = c2.cart_id " +
+                    "WHERE c.cart_id = c2.cart_id AND c.subtotal_cents IS NULL")
+            ),
+            // IDENTITY -> pooled sequence ids (see the entities' @SequenceGenerator)
+            pooledSequence("products", "product_id", Product.ID_SEQUENCE, Product.ID_ALLOCATION_SIZE),
+            pooledSequence("cart_items", "cart_item_id", CartItem.ID_SEQUENCE, CartItem.ID_ALLOCATION_SIZE),
+            pooledSequence("promotions", "promotion_id", "promotions_seq", 50)
+    ).flatMap(List::stream).toList();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.schema.init.enabled:true}")
+    private boolean schemaInitEnabled;
+
+    public DatabaseSchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!schemaInitEnabled) {
+            log.info("Schema initialization skipped: app.schema.init.enabled=false");
+            return;
+        }
+
+        int applied = 0;
+        for (SchemaStatement statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement.sql());
+                applied++;
+            } catch (DataAccessException ex) {
+                // Keep starting up: features depending on this object fall back or fail per request
+                log.warn("Schema statement '{}' failed: {}", statement.name(), ex.getMostSpecificCause().getMessage());
+            }
+        }
+
+        log.info("Schema initialization finished. statementsApplied={}/{}", applied, STATEMENTS.size());
+    }
+
+    /**
+     * Move an IDENTITY column to a sequence shared with Hibernate's pooled optimizer, keeping existing ids.
+     * Hibernate hands out the block of ids ending at each sequence value, so the sequence is moved at
+     * least one block past the highest id, and never backwards (another instance may hold a block).
+     * The IDENTITY default is dropped so nothing keeps drawing ids from the old sequence.
+     */
+    private static List<SchemaStatement> pooledSequence(String table, String column, String sequence, int allocationSize) {
+        return List.of(
+                new SchemaStatement(sequence,
+                        "CREATE SEQUENCE IF NOT EXISTS " + sequence + " INCREMENT BY " + allocationSize),
+                new SchemaStatement(sequence + ".setval",
+                        "SELECT setval('" + sequence + "', GREATEST(" +
+                        "(SELECT coalesce(max(" + column + "), 0) FROM " + table + ") + " + allocationSize + ", " +
+                        "(SELECT last_value FROM " + sequence + ")))"),
+                new SchemaStatement(table + "." + column + ".identity",
+                        "ALTER TABLE " + table + " ALTER COLUMN " + column + " DROP IDENTITY IF EXISTS")
+        );
+    }
+
+    private record SchemaStatement(String name, String sql) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.capstone.shoppingcart.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. refreshing cached catalog counts)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,16 +1,29 @@
 package com.capstone.shoppingcart.controllers.admin;
 
+import com.capstone.shoppingcart.dtos.BulkProductUpdateRequest;
+import com.capstone.shoppingcart.dtos.BulkProductUpdateResultDto;
 import com.capstone.shoppingcart.dtos.CreateProductRequest;
+import com.capstone.shoppingcart.dtos.ProductImportResultDto;
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
 import com.capstone.shoppingcart.dtos.UpdateProductRequest;
+import com.capstone.shoppingcart.enums.ProductFileFormat;
 import com.capstone.shoppingcart.services.admin.AdminProductService;
+import com.capstone.shoppingcart.services.admin.ProductExportService;
+import com.capstone.shoppingcart.services.admin.ProductImportService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/admin/v1/products")
@@ -18,19 +31,51 @@ import org.springframework.web.bind.annotation.*;
 public class AdminProductController {
     
     private final AdminProductService adminProductService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
     
     @GetMapping
-    public ResponseEntity<Page<ProductResponseDto>> getAllProducts(Pageable pageable) {
-        Page<ProductResponseDto> products = adminProductService.getAllProducts(pageable);
+    public ResponseEntity<Page<ProductResponseDto>> getAllProducts(
+            Pageable pageable,
+            @RequestParam(defaultValue = "false") boolean exactCount) {
+        Page<ProductResponseDto> products = adminProductService.getAllProducts(pageable, exactCount);
         return ResponseEntity.ok(products);
     }
     
+    // Whole catalog, written from a database cursor while the response is being sent
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        ProductFileFormat fileFormat = ProductFileFormat.fromKey(format);
+        StreamingResponseBody body = output -> productExportService.export(output, fileFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fileFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + fileFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+    
     @PostMapping
     public ResponseEntity<ProductResponseDto> createProduct(@Valid @RequestBody CreateProductRequest request) {
         ProductResponseDto product = adminProductService.createProduct(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(product);
     }
     
+    // Raw body stream (text/csv or application/x-ndjson), parsed while it is uploaded
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResultDto> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ProductImportResultDto result = productImportService.importProducts(body,
+                ProductFileFormat.fromContentType(contentType));
+        return ResponseEntity.ok(result);
+    }
+    
+    @PatchMapping
+    public ResponseEntity<BulkProductUpdateResultDto> bulkUpdateProducts(@Valid @RequestBody BulkProductUpdateRequest request) {
+        BulkProductUpdateResultDto result = adminProductService.bulkUpdate(request);
+        return ResponseEntity.ok(result);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponseDto> updateProduct(
             @PathVariable Long id,
@@ -1,7 +1,9 @@
 package com.capstone.shoppingcart.controllers.customer;
 
 import com.capstone.shoppingcart.dtos.AddItemToCartRequest;
+import com.capstone.shoppingcart.dtos.BatchCartUpdateRequest;
 import com.capstone.shoppingcart.dtos.CartResponseDto;
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
 import com.capstone.shoppingcart.dtos.UpdateCartItemRequest;
 import com.capstone.shoppingcart.entities.User;
 import com.capstone.shoppingcart.repositories.UserRepository;
@@ -33,6 +35,12 @@ public class CartController {
         return ResponseEntity.ok(cart);
     }
 
+    // Header badge: reads the summary columns only, without loading the user entity
+    @GetMapping("/summary")
+    public ResponseEntity<CartSummaryDto> getMyCartSummary(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(cartService.getCartSummary(userDetails.getUsername()));
+    }
+
     @PostMapping("/items")
     public ResponseEntity<CartResponseDto> addItemToCart(
             @AuthenticationPrincipal UserDetails userDetails,
@@ -45,6 +53,19 @@ public class CartController {
         return ResponseEntity.ok(cart);
     }
 
+    // Several add / set-quantity / remove operations in one request and one transaction
+    @PatchMapping("/items")
+    public ResponseEntity<CartResponseDto> updateCartItems(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody BatchCartUpdateRequest request) {
+        
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        CartResponseDto cart = cartService.applyItemOperations(user, request.getOperations());
+        return ResponseEntity.ok(cart);
+    }
+
     @PutMapping("/items/{itemId}")
     public ResponseEntity<CartResponseDto> updateCartItemQuantity(
             @AuthenticationPrincipal UserDetails userDetails,
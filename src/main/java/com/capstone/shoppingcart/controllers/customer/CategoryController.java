@@ -1,14 +1,17 @@
 package com.capstone.shoppingcart.controllers.customer;
 
 import com.capstone.shoppingcart.dtos.CategoryResponseDto;
+import com.capstone.shoppingcart.dtos.CursorPageDto;
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.enums.ProductSort;
+import com.capstone.shoppingcart.services.CatalogVersionService;
 import com.capstone.shoppingcart.services.CategoryService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,19 +20,27 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersionService catalogVersionService;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersionService catalogVersionService) {
         this.categoryService = categoryService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping
-    public ResponseEntity<List<CategoryResponseDto>> getAllCategories() {
+    public ResponseEntity<List<CategoryResponseDto>> getAllCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersionService.catalogETag())) {
+            return null;
+        }
         List<CategoryResponseDto> categories = categoryService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryResponseDto> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<CategoryResponseDto> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersionService.categoryETag(id))) {
+            return null;
+        }
         CategoryResponseDto category = categoryService.getCategoryById(id);
         return ResponseEntity.ok(category);
     }
@@ -40,15 +51,32 @@ public class CategoryController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(required = false) String sortDir,
+            @RequestParam(defaultValue = "false") boolean exactCount,
+            WebRequest webRequest) {
 
-        Sort sort = sortDir.equalsIgnoreCase("desc")
-                ? Sort.by(sortBy).descending()
-                : Sort.by(sortBy).ascending();
+        ProductSort sort = ProductSort.fromKey(sortBy);
+        // Popularity order changes with every add-to-cart, so it is not covered by the category version
+        if (sort != ProductSort.POPULARITY && webRequest.checkNotModified(catalogVersionService.categoryETag(id))) {
+            return null;
+        }
 
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, sort.toSort(sortDir));
 
-        Page<ProductResponseDto> products = categoryService.getProductsByCategory(id, pageable);
+        Page<ProductResponseDto> products = categoryService.getProductsByCategory(id, pageable, exactCount);
+        return ResponseEntity.ok(products);
+    }
+
+    @GetMapping("/{id}/products/scroll")
+    public ResponseEntity<CursorPageDto<ProductResponseDto>> scrollProductsByCategory(
+            @PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(required = false) String sortDir) {
+
+        CursorPageDto<ProductResponseDto> products =
+                categoryService.scrollProductsByCategory(id, ProductSort.fromKey(sortBy), sortDir, size, after);
         return ResponseEntity.ok(products);
     }
 }
@@ -1,22 +1,40 @@
 package com.capstone.shoppingcart.controllers.customer;
 
+import com.capstone.shoppingcart.dtos.CursorPageDto;
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.dtos.ProductSortDto;
+import com.capstone.shoppingcart.dtos.ProductSuggestResponseDto;
+import com.capstone.shoppingcart.enums.ProductSort;
+import com.capstone.shoppingcart.services.CatalogVersionService;
 import com.capstone.shoppingcart.services.ProductService;
+import com.capstone.shoppingcart.services.search.ProductSuggestIndex;
+import com.capstone.shoppingcart.services.trending.TrendingService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/customer/v1/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final CatalogVersionService catalogVersionService;
+    private final TrendingService trendingService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductSuggestIndex productSuggestIndex,
+                             CatalogVersionService catalogVersionService,
+                             TrendingService trendingService) {
         this.productService = productService;
+        this.productSuggestIndex = productSuggestIndex;
+        this.catalogVersionService = catalogVersionService;
+        this.trendingService = trendingService;
     }
 
     @GetMapping
@@ -26,32 +44,93 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(required = false) String sortDir,
+            @RequestParam(defaultValue = "false") boolean exactCount,
+            WebRequest webRequest) {
+
+        ProductSort sort = ProductSort.fromKey(sortBy);
+        // Popularity order changes with every add-to-cart, so it is not covered by the catalog version
+        if (sort != ProductSort.POPULARITY) {
+            String eTag = categoryId != null && search == null
+                    ? catalogVersionService.categoryETag(categoryId)
+                    : catalogVersionService.catalogETag();
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+        }
 
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-            ? Sort.by(sortBy).descending() 
-            : Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, sort.toSort(sortDir));
 
         Page<ProductResponseDto> products;
 
         if (categoryId != null && search != null) {
             products = productService.searchProductsByCategory(categoryId, search, pageable);
         } else if (categoryId != null) {
-            products = productService.getProductsByCategory(categoryId, pageable);
+            products = productService.getProductsByCategory(categoryId, pageable, exactCount);
         } else if (search != null) {
             products = productService.searchProducts(search, pageable);
         } else {
-            products = productService.getAllProducts(pageable);
+            products = productService.getAllProducts(pageable, exactCount);
         }
 
         return ResponseEntity.ok(products);
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDto<ProductResponseDto>> scrollProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(required = false) String sortDir) {
+
+        CursorPageDto<ProductResponseDto> products =
+                productService.scrollProducts(categoryId, search, ProductSort.fromKey(sortBy), sortDir, size, after);
+        return ResponseEntity.ok(products);
+    }
+
+    @GetMapping("/sorts")
+    public ResponseEntity<List<ProductSortDto>> getSortOptions() {
+        return ResponseEntity.ok(productService.getSortOptions());
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ProductSuggestResponseDto> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(productSuggestIndex.suggest(q, limit));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<ProductResponseDto>> getTrendingProducts(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trendingService.getTrendingProducts(limit));
+    }
+
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<ProductResponseDto>> getRelatedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.getRelatedProducts(id, limit));
+    }
+
+    @GetMapping("/{id}/also-wishlisted")
+    public ResponseEntity<List<ProductResponseDto>> getAlsoWishlistedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.getAlsoWishlistedProducts(id, limit));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponseDto> getProductById(@PathVariable Long id) {
-        ProductResponseDto product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<ProductResponseDto> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        // Recorded before the ETag check so revalidated (304) views count too, and here rather than in the
+        // cached service method, which is skipped on cache hits. Ids without a product never rank, since
+        // the trending query joins products.
+        trendingService.recordView(id);
+        if (webRequest.checkNotModified(catalogVersionService.catalogETag())) {
+            return null;
+        }
+        return ResponseEntity.ok(productService.getProductById(id));
     }
 }
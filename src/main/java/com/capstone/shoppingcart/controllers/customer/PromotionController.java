@@ -1,12 +1,14 @@
 package com.capstone.shoppingcart.controllers.customer;
 
 import com.capstone.shoppingcart.dtos.PromotionResponseDto;
+import com.capstone.shoppingcart.services.CatalogVersionService;
 import com.capstone.shoppingcart.services.PromotionService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,19 +17,27 @@ import java.util.List;
 public class PromotionController {
 
     private final PromotionService promotionService;
+    private final CatalogVersionService catalogVersionService;
 
-    public PromotionController(PromotionService promotionService) {
+    public PromotionController(PromotionService promotionService, CatalogVersionService catalogVersionService) {
         this.promotionService = promotionService;
+        this.catalogVersionService = catalogVersionService;
     }
 
     @GetMapping
-    public ResponseEntity<List<PromotionResponseDto>> getActivePromotions() {
+    public ResponseEntity<List<PromotionResponseDto>> getActivePromotions(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersionService.promotionsETag())) {
+            return null;
+        }
         List<PromotionResponseDto> promotions = promotionService.getActivePromotions();
         return ResponseEntity.ok(promotions);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PromotionResponseDto> getPromotionById(@PathVariable Long id) {
+    public ResponseEntity<PromotionResponseDto> getPromotionById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersionService.promotionsETag())) {
+            return null;
+        }
         PromotionResponseDto promotion = promotionService.getPromotionById(id);
         return ResponseEntity.ok(promotion);
     }
@@ -0,0 +1,19 @@
+package com.capstone.shoppingcart.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchCartUpdateRequest {
+
+    // Applied in order; a failing operation rejects the whole batch
+    @Valid
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 200, message = "At most 200 operations per request")
+    private List<CartItemOperation> operations = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.capstone.shoppingcart.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkProductUpdateRequest {
+
+    // Category-wide price changes, applied first
+    @Valid
+    @Size(max = 1000, message = "At most 1000 rules per request")
+    private List<CategoryPriceRule> rules = new ArrayList<>();
+
+    // Explicit per-product values, applied after the rules (so they win)
+    @Valid
+    @Size(max = 10000, message = "At most 10000 items per request")
+    private List<ProductUpdateItem> items = new ArrayList<>();
+}
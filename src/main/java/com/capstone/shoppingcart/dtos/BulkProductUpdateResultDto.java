@@ -0,0 +1,15 @@
+package com.capstone.shoppingcart.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkProductUpdateResultDto {
+    // Distinct products changed by rules and items together
+    private long updated;
+}
@@ -0,0 +1,27 @@
+package com.capstone.shoppingcart.dtos;
+
+import com.capstone.shoppingcart.enums.CartOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartItemOperation {
+
+    @NotNull(message = "Operation type is required")
+    private CartOperationType type;
+
+    // Line to change (SET_QUANTITY / REMOVE); takes precedence over productId
+    private Long itemId;
+
+    // Product to add (ADD), or whose line to change when itemId is not given
+    private Long productId;
+
+    // Units to add (ADD) or the new quantity (SET_QUANTITY); ignored by REMOVE
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+}
@@ -19,4 +19,5 @@ public class CartResponseDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private List<CartItemDto> cartItems;
+    private CartSummaryDto summary;
 }
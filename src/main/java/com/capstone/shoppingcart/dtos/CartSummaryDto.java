@@ -0,0 +1,19 @@
+package com.capstone.shoppingcart.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartSummaryDto {
+    // Distinct products in the cart
+    private Integer lineCount;
+    // Sum of item quantities (the header badge)
+    private Integer totalQuantity;
+    // Sum of price * quantity in minor units (cents), so clients need no floating point sums
+    private Long subtotalCents;
+}
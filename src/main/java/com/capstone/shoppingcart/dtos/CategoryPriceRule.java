@@ -0,0 +1,17 @@
+package com.capstone.shoppingcart.dtos;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CategoryPriceRule {
+
+    @NotNull(message = "Category ID is required")
+    private Long categoryId;
+
+    // e.g. -10 for "10% off", 5 for "5% more"; prices are rounded to 2 decimals
+    @NotNull(message = "Price change percent is required")
+    @DecimalMin(value = "-100", inclusive = false, message = "Price change percent must be greater than -100")
+    private Double priceChangePercent;
+}
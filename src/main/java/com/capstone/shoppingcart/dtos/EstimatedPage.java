@@ -0,0 +1,24 @@
+package com.capstone.shoppingcart.dtos;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page whose total may be an estimate instead of an exact COUNT(*).
+ * Serialized like any other page with an extra "totalApproximate" field.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean totalApproximate;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+}
@@ -0,0 +1,16 @@
+package com.capstone.shoppingcart.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRowErrorDto {
+    // 1-based line in the uploaded file where the row starts
+    private long line;
+    private String message;
+}
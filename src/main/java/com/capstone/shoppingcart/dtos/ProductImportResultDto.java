@@ -0,0 +1,20 @@
+package com.capstone.shoppingcart.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResultDto {
+    private long imported;
+    private long failed;
+    private List<ImportRowErrorDto> errors;
+    // True when more rows failed than errors are reported
+    private boolean errorsTruncated;
+}
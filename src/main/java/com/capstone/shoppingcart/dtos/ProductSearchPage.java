@@ -0,0 +1,24 @@
+package com.capstone.shoppingcart.dtos;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Search result page that also carries a "did you mean" suggestion.
+ * Serialized like any other page with an extra "suggestion" field.
+ */
+public class ProductSearchPage extends PageImpl<ProductResponseDto> {
+
+    private final String suggestion;
+
+    public ProductSearchPage(List<ProductResponseDto> content, Pageable pageable, long total, String suggestion) {
+        super(content, pageable, total);
+        this.suggestion = suggestion;
+    }
+
+    public String getSuggestion() {
+        return suggestion;
+    }
+}
@@ -0,0 +1,19 @@
+package com.capstone.shoppingcart.dtos;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ProductUpdateItem {
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    // Fields left null keep their current value
+    @Min(value = 0, message = "Price must be positive")
+    private Double price;
+
+    @Min(value = 0, message = "Stock must be non-negative")
+    private Integer stock;
+}
@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -29,10 +31,38 @@ public class Cart {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @OneToOne
+    // Denormalized summary (null until backfilled). Only relative SQL updates next to the cart_items
+    // change write it, never an entity save, so a concurrent increment cannot be overwritten.
+    @Column(name = "line_count", updatable = false)
+    private Integer lineCount;
+
+    @Column(name = "total_quantity", updatable = false)
+    private Integer totalQuantity;
+
+    @Column(name = "subtotal_cents", updatable = false)
+    private Long subtotalCents;
+
+    // Lazy: cart reads only need the user id, which the proxy holds without loading the user
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL)
     private List<CartItem> cartItems = new ArrayList<>();
+
+    /**
+     * Rebuild the summary from the loaded items
+     */
+    public void recomputeSummary() {
+        lineCount = cartItems.size();
+        totalQuantity = cartItems.stream().mapToInt(CartItem::getQuantity).sum();
+        subtotalCents = cartItems.stream().mapToLong(item -> toCents(item.getPrice()) * item.getQuantity()).sum();
+    }
+
+    /**
+     * Price in cents, with the same rounding as the SQL backfill (numeric round, half away from zero)
+     */
+    public static long toCents(double price) {
+        return BigDecimal.valueOf(price).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
 }
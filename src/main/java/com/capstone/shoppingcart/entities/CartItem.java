@@ -11,8 +11,13 @@ import lombok.*;
 @NoArgsConstructor
 @Table(name = "cart_items")
 public class CartItem {
+    // Also used by the write-behind cart store, which reserves ids for items it has not flushed yet
+    public static final String ID_SEQUENCE = "cart_items_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "cart_item_id")
     private Long id;
 
@@ -2,6 +2,7 @@ package com.capstone.shoppingcart.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,10 +13,27 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "products")
+// One index per supported listing sort (see ProductSort), with and without the category filter
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_id", columnList = "category_id, product_id"),
+        @Index(name = "idx_products_category_price", columnList = "category_id, price, product_id"),
+        @Index(name = "idx_products_category_created_at", columnList = "category_id, created_at, product_id"),
+        @Index(name = "idx_products_category_name", columnList = "category_id, name, product_id"),
+        @Index(name = "idx_products_category_popularity", columnList = "category_id, popularity, product_id"),
+        @Index(name = "idx_products_price", columnList = "price, product_id"),
+        @Index(name = "idx_products_created_at", columnList = "created_at, product_id"),
+        @Index(name = "idx_products_name", columnList = "name, product_id"),
+        @Index(name = "idx_products_popularity", columnList = "popularity, product_id")
+})
 public class Product {
+    // Shared with bulk JDBC inserts, which reserve ids from the same sequence
+    public static final String ID_SEQUENCE = "products_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence: one round trip reserves a block of ids, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "product_id")
     private Long id;
 
@@ -40,6 +58,12 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Times the product was added to a cart
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "popularity", nullable = false)
+    private Long popularity = 0L;
+
     @ManyToOne
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Promotion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "promotions_seq")
+    @SequenceGenerator(name = "promotions_seq", sequenceName = "promotions_seq", allocationSize = 50)
     @Column(name = "promotion_id")
     private Long id;
 
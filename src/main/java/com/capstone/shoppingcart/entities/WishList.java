@@ -25,6 +25,10 @@ public class WishList {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Last change to the product list (drives incremental recommendation refreshes)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @OneToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -0,0 +1,10 @@
+package com.capstone.shoppingcart.enums;
+
+public enum CartOperationType {
+    // Add quantity units of productId (a new line, or more of an existing one)
+    ADD,
+    // Replace the quantity of a line
+    SET_QUANTITY,
+    // Remove a line
+    REMOVE
+}
@@ -0,0 +1,8 @@
+package com.capstone.shoppingcart.enums;
+
+public enum CartStorageMode {
+    // Every cart change is written to carts/cart_items before the request returns
+    DATABASE,
+    // Carts are served from memory and written back in batches (single instance only)
+    WRITE_BEHIND
+}
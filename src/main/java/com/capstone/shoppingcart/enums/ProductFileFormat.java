@@ -0,0 +1,48 @@
+package com.capstone.shoppingcart.enums;
+
+import java.util.Locale;
+
+public enum ProductFileFormat {
+    // Comma-separated with a header row (RFC 4180 quoting)
+    CSV("text/csv"),
+    // One JSON object per line
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    ProductFileFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Resolve a format by name ("csv" or "ndjson", case-insensitive)
+     */
+    public static ProductFileFormat fromKey(String key) {
+        for (ProductFileFormat format : values()) {
+            if (format.name().equalsIgnoreCase(key)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + key + ". Use csv or ndjson");
+    }
+
+    /**
+     * Resolve the format of a request body from its Content-Type header (parameters such as charset are ignored)
+     */
+    public static ProductFileFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            for (ProductFileFormat format : values()) {
+                if (format.contentType.equals(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType
+                + ". Use text/csv or application/x-ndjson");
+    }
+}
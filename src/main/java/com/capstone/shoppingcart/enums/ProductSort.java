@@ -0,0 +1,77 @@
+package com.capstone.shoppingcart.enums;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Sort orders supported by product listings. Each one is backed by an index on
+ * (category_id, column, product_id) and one on (column, product_id), declared on Product,
+ * so listings can read rows in order instead of sorting the whole filtered set.
+ */
+public enum ProductSort {
+    // Primary key order (default)
+    ID("id", "id", Sort.Direction.ASC),
+    PRICE("price", "price", Sort.Direction.ASC),
+    NEWEST("newest", "createdAt", Sort.Direction.DESC),
+    NAME("name", "name", Sort.Direction.ASC),
+    // Times added to a cart
+    POPULARITY("popularity", "popularity", Sort.Direction.DESC);
+
+    private final String key;
+    private final String property;
+    private final Sort.Direction defaultDirection;
+
+    ProductSort(String key, String property, Sort.Direction defaultDirection) {
+        this.key = key;
+        this.property = property;
+        this.defaultDirection = defaultDirection;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDefaultDirection() {
+        return defaultDirection;
+    }
+
+    /**
+     * Resolve a sortBy request parameter
+     * @throws IllegalArgumentException if the sort is not supported
+     */
+    public static ProductSort fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.key.equalsIgnoreCase(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + key + ". Allowed: " +
+                        Arrays.stream(values()).map(ProductSort::getKey).collect(Collectors.joining(", "))));
+    }
+
+    /**
+     * Resolve the sort direction, falling back to this sort's natural one
+     * @param sortDir - asc, desc or null
+     */
+    public Sort.Direction direction(String sortDir) {
+        if (sortDir == null || sortDir.isBlank()) {
+            return defaultDirection;
+        }
+        return sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    /**
+     * Spring Data sort with the id as tie-breaker, matching the column order of the indexes
+     */
+    public Sort toSort(String sortDir) {
+        Sort.Direction direction = direction(sortDir);
+        if (this == ID) {
+            return Sort.by(direction, property);
+        }
+        return Sort.by(direction, property).and(Sort.by(direction, ID.property));
+    }
+}
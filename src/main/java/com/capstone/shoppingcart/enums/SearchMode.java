@@ -0,0 +1,10 @@
+package com.capstone.shoppingcart.enums;
+
+public enum SearchMode {
+    // LIKE '%term%' scan in PostgreSQL
+    DATABASE,
+    // In-process inverted index (falls back to DATABASE until the index is built)
+    INDEX,
+    // PostgreSQL full-text search on a GIN-indexed tsvector, ranked with ts_rank
+    FULL_TEXT
+}
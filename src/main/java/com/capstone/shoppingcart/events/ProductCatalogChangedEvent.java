@@ -0,0 +1,28 @@
+package com.capstone.shoppingcart.events;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published whenever products are created, updated or deleted.
+ * Listeners reload the given products (missing ones were deleted) to keep
+ * in-memory read structures in sync with the database.
+ * categoryIds holds every category whose product list changed (old and new one on a move).
+ * reloadAll is set by bulk operations that change too many products to list; listeners
+ * then rebuild from scratch and productIds is empty.
+ */
+public record ProductCatalogChangedEvent(Set<Long> productIds, Set<Long> categoryIds, boolean reloadAll) {
+
+    public static ProductCatalogChangedEvent of(Long productId, Long... categoryIds) {
+        return new ProductCatalogChangedEvent(Set.of(productId), Arrays.stream(categoryIds)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet()), false);
+    }
+
+    public static ProductCatalogChangedEvent bulk(Collection<Long> categoryIds) {
+        return new ProductCatalogChangedEvent(Set.of(), Set.copyOf(categoryIds), true);
+    }
+}
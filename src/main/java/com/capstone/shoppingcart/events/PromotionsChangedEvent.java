@@ -0,0 +1,7 @@
+package com.capstone.shoppingcart.events;
+
+/**
+ * Published whenever a promotion is created, updated or deleted
+ */
+public record PromotionsChangedEvent(Long promotionId) {
+}
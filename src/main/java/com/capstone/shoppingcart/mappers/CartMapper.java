@@ -2,6 +2,7 @@ package com.capstone.shoppingcart.mappers;
 
 import com.capstone.shoppingcart.dtos.CartItemDto;
 import com.capstone.shoppingcart.dtos.CartResponseDto;
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
 import com.capstone.shoppingcart.entities.Cart;
 import com.capstone.shoppingcart.entities.CartItem;
 import org.mapstruct.Mapper;
@@ -11,7 +12,10 @@ import org.mapstruct.Mapping;
 public interface CartMapper {
     
     @Mapping(source = "user.id", target = "userId")
+    @Mapping(source = "cart", target = "summary")
     CartResponseDto toDto(Cart cart);
     
+    CartSummaryDto toSummaryDto(Cart cart);
+    
     CartItemDto toDto(CartItem cartItem);
 }
@@ -2,6 +2,7 @@ package com.capstone.shoppingcart.mappers;
 
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
 import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.repositories.ProductRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -11,4 +12,6 @@ public interface ProductMapper {
     @Mapping(source = "category.id", target = "categoryId")
     @Mapping(source = "category.name", target = "categoryName")
     ProductResponseDto toDto(Product product);
+
+    ProductResponseDto toDto(ProductRepository.ProductRow row);
 }
@@ -1,14 +1,93 @@
 package com.capstone.shoppingcart.repositories;
 
-import com.capstone.shoppingcart.entities.Cart;
 import com.capstone.shoppingcart.entities.CartItem;
-import com.capstone.shoppingcart.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+
+    /**
+     * Add units of a product to the user's cart in one statement: a new line is inserted, or the
+     * existing line (unique on cart and product) is incremented in place, and the cart summary is
+     * adjusted relative to its current value. Concurrent adds therefore add up instead of creating
+     * duplicate lines or losing updates. xmax = 0 tells an inserted row from an updated one.
+     * The persistence context is cleared afterwards, so a cart loaded earlier is read again.
+     * @return 1, or 0 when the user has no cart yet
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "WITH item AS (" +
+                   "INSERT INTO cart_items (cart_item_id, cart_id, product_id, quantity, price) " +
+                   "SELECT :itemId, c.cart_id, :productId, :quantity, :price FROM carts c WHERE c.user_id = :userId " +
+                   "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity " +
+                   "RETURNING cart_id, price, (xmax = 0) AS inserted) " +
+                   "UPDATE carts c SET " +
+                   "line_count = c.line_count + CASE WHEN item.inserted THEN 1 ELSE 0 END, " +
+                   "total_quantity = c.total_quantity + :quantity, " +
+                   "subtotal_cents = c.subtotal_cents + CAST(round(CAST(item.price AS numeric) * 100) AS bigint) * :quantity, " +
+                   "updated_at = :updatedAt " +
+                   "FROM item WHERE c.cart_id = item.cart_id",
+           nativeQuery = true)
+    int upsertIntoUserCart(@Param("userId") UUID userId,
+                           @Param("itemId") Long itemId,
+                           @Param("productId") Long productId,
+                           @Param("quantity") int quantity,
+                           @Param("price") double price,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Set the quantity of a line of the user's cart and move the cart summary by the difference,
+     * in one statement. The line is locked before its old quantity is read, so an add committed
+     * in between is counted instead of overwritten.
+     * @return 1, or 0 when the user's cart has no such line
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "WITH old AS (" +
+                   "SELECT ci.cart_item_id, ci.cart_id, ci.quantity, ci.price FROM cart_items ci " +
+                   "JOIN carts c ON c.cart_id = ci.cart_id " +
+                   "WHERE ci.cart_item_id = :itemId AND c.user_id = :userId FOR UPDATE OF ci), " +
+                   "item AS (" +
+                   "UPDATE cart_items ci SET quantity = :quantity FROM old WHERE ci.cart_item_id = old.cart_item_id " +
+                   "RETURNING old.cart_id, old.price, :quantity - old.quantity AS delta) " +
+                   "UPDATE carts c SET " +
+                   "total_quantity = c.total_quantity + item.delta, " +
+                   "subtotal_cents = c.subtotal_cents + CAST(round(CAST(item.price AS numeric) * 100) AS bigint) * item.delta, " +
+                   "updated_at = :updatedAt " +
+                   "FROM item WHERE c.cart_id = item.cart_id",
+           nativeQuery = true)
+    int setQuantityInUserCart(@Param("userId") UUID userId,
+                              @Param("itemId") Long itemId,
+                              @Param("quantity") int quantity,
+                              @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Delete a line of the user's cart and take it out of the cart summary, in one statement.
+     * The summary moves by the quantity actually deleted, including units added concurrently.
+     * @return 1, or 0 when the user's cart has no such line
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "WITH item AS (" +
+                   "DELETE FROM cart_items ci USING carts c " +
+                   "WHERE ci.cart_item_id = :itemId AND c.cart_id = ci.cart_id AND c.user_id = :userId " +
+                   "RETURNING ci.cart_id, ci.quantity, ci.price) " +
+                   "UPDATE carts c SET " +
+                   "line_count = c.line_count - 1, " +
+                   "total_quantity = c.total_quantity - item.quantity, " +
+                   "subtotal_cents = c.subtotal_cents - CAST(round(CAST(item.price AS numeric) * 100) AS bigint) * item.quantity, " +
+                   "updated_at = :updatedAt " +
+                   "FROM item WHERE c.cart_id = item.cart_id",
+           nativeQuery = true)
+    int deleteFromUserCart(@Param("userId") UUID userId,
+                           @Param("itemId") Long itemId,
+                           @Param("updatedAt") LocalDateTime updatedAt);
 }
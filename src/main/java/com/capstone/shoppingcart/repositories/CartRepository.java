@@ -1,14 +1,40 @@
 package com.capstone.shoppingcart.repositories;
 
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
 import com.capstone.shoppingcart.entities.Cart;
-import com.capstone.shoppingcart.entities.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, UUID> {
-    Optional<Cart> findByUser(User user);
+    // Cart, items, their products and the products' categories in one statement (no per-item selects)
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product", "cartItems.product.category"})
+    Optional<Cart> findWithItemsByUserId(UUID userId);
+
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product", "cartItems.product.category"})
+    Optional<Cart> findWithItemsByUserEmail(String email);
+
+    // Summary columns only: one row, no items, no user entity
+    @Query("SELECT new com.capstone.shoppingcart.dtos.CartSummaryDto(c.lineCount, c.totalQuantity, c.subtotalCents) " +
+           "FROM Cart c WHERE c.user.email = :email")
+    Optional<CartSummaryDto> findSummaryByUserEmail(@Param("email") String email);
+
+    // Create the user's (empty) cart unless one exists; racing requests end up with the same cart
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO carts (cart_id, user_id, created_at, line_count, total_quantity, subtotal_cents) " +
+                   "VALUES (:cartId, :userId, :createdAt, 0, 0, 0) ON CONFLICT (user_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("cartId") UUID cartId,
+                       @Param("userId") UUID userId,
+                       @Param("createdAt") LocalDateTime createdAt);
 }
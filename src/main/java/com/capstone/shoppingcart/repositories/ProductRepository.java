@@ -1,33 +1,153 @@
 package com.capstone.shoppingcart.repositories;
 
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
 import com.capstone.shoppingcart.entities.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    // Read paths select exactly the ProductResponseDto columns with the category in one statement,
+    // so listings never load Product entities (or their cart item / wish list proxies)
+    String DTO_SELECT = "SELECT new com.capstone.shoppingcart.dtos.ProductResponseDto(" +
+                        "p.id, p.name, p.description, p.price, p.imageUrl, p.createdAt, c.id, c.name) " +
+                        "FROM Product p JOIN p.category c";
+
+    // Native equivalent for PostgreSQL-specific searches; quoted aliases keep the case ProductRow expects
+    String ROW_SELECT = "SELECT p.product_id AS \"id\", p.name AS \"name\", p.description AS \"description\", " +
+                        "p.price AS \"price\", p.image_url AS \"imageUrl\", p.created_at AS \"createdAt\", " +
+                        "c.category_id AS \"categoryId\", c.name AS \"categoryName\" " +
+                        "FROM products p JOIN categories c ON c.category_id = p.category_id";
+
+    String LIKE_FILTER = "(LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) " +
+                         "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))";
 
     Optional<Product> findByNameIgnoreCase(String name);
+
+    @Query(DTO_SELECT + " WHERE p.id = :id")
+    Optional<ProductResponseDto> findDtoById(@Param("id") Long id);
+
+    // All products (used to build in-memory indexes)
+    @Query(DTO_SELECT)
+    List<ProductResponseDto> findAllDtos();
+
+    @Query(DTO_SELECT + " WHERE p.id IN :ids")
+    List<ProductResponseDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Id and name only (used to build the suggest index)
+    @Query("SELECT p.id AS id, p.name AS name FROM Product p")
+    List<ProductNameView> findAllNames();
+
+    @Query("SELECT p.id AS id, p.name AS name FROM Product p WHERE p.id IN :ids")
+    List<ProductNameView> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // All products, with an exact COUNT(*)
+    @Query(value = DTO_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductResponseDto> findDtoPage(Pageable pageable);
+
+    // Listing pages without the COUNT(*) query (totals come from ProductCountEstimator)
+    @Query(DTO_SELECT)
+    Slice<ProductResponseDto> findDtoSlice(Pageable pageable);
     
     // Find products by category
-    Page<Product> findByCategory_Id(Long categoryId, Pageable pageable);
+    @Query(value = DTO_SELECT + " WHERE c.id = :categoryId",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
+    Page<ProductResponseDto> findDtoPageByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query(DTO_SELECT + " WHERE c.id = :categoryId")
+    Slice<ProductResponseDto> findDtoSliceByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query("SELECT p.category.id AS categoryId, COUNT(p) AS total FROM Product p GROUP BY p.category.id")
+    List<CategoryCountView> countByCategory();
+
+    @Query("SELECT p.category.id AS categoryId, COUNT(p) AS total FROM Product p " +
+           "WHERE p.category.id IN :categoryIds GROUP BY p.category.id")
+    List<CategoryCountView> countByCategory(@Param("categoryIds") Collection<Long> categoryIds);
     
     // Search products by name (case-insensitive, partial match)
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<Product> searchProducts(@Param("search") String search, Pageable pageable);
+    @Query(value = DTO_SELECT + " WHERE " + LIKE_FILTER,
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE " + LIKE_FILTER)
+    Page<ProductResponseDto> searchProducts(@Param("search") String search, Pageable pageable);
     
     // Search products by category and name
-    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId " +
-           "AND (LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Product> searchProductsByCategory(@Param("categoryId") Long categoryId, 
-                                           @Param("search") String search, 
+    @Query(value = DTO_SELECT + " WHERE c.id = :categoryId AND " + LIKE_FILTER,
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId AND " + LIKE_FILTER)
+    Page<ProductResponseDto> searchProductsByCategory(@Param("categoryId") Long categoryId, 
+                                                      @Param("search") String search, 
+                                                      Pageable pageable);
+
+    // Full-text search over the weighted search_vector column (GIN indexed), ranked with ts_rank
+    @Query(value = ROW_SELECT + " " +
+                   "WHERE p.search_vector @@ to_tsquery('simple', :query) " +
+                   "ORDER BY ts_rank(p.search_vector, to_tsquery('simple', :query)) DESC, p.product_id",
+           countQuery = "SELECT count(*) FROM products p WHERE p.search_vector @@ to_tsquery('simple', :query)",
+           nativeQuery = true)
+    Page<ProductRow> fullTextSearch(@Param("query") String query, Pageable pageable);
+
+    @Query(value = ROW_SELECT + " " +
+                   "WHERE p.category_id = :categoryId AND p.search_vector @@ to_tsquery('simple', :query) " +
+                   "ORDER BY ts_rank(p.search_vector, to_tsquery('simple', :query)) DESC, p.product_id",
+           countQuery = "SELECT count(*) FROM products p " +
+                        "WHERE p.category_id = :categoryId AND p.search_vector @@ to_tsquery('simple', :query)",
+           nativeQuery = true)
+    Page<ProductRow> fullTextSearchByCategory(@Param("categoryId") Long categoryId,
+                                              @Param("query") String query,
+                                              Pageable pageable);
+
+    // Typo-tolerant name match: <% is served by the pg_trgm GIN index, the threshold narrows it further
+    @Query(value = ROW_SELECT + " " +
+                   "WHERE :search <% lower(p.name) AND word_similarity(:search, lower(p.name)) >= :threshold " +
+                   "ORDER BY word_similarity(:search, lower(p.name)) DESC, p.product_id",
+           countQuery = "SELECT count(*) FROM products p " +
+                        "WHERE :search <% lower(p.name) AND word_similarity(:search, lower(p.name)) >= :threshold",
+           nativeQuery = true)
+    Page<ProductRow> fuzzySearch(@Param("search") String search,
+                                 @Param("threshold") double threshold,
+                                 Pageable pageable);
+
+    @Query(value = ROW_SELECT + " " +
+                   "WHERE p.category_id = :categoryId " +
+                   "AND :search <% lower(p.name) AND word_similarity(:search, lower(p.name)) >= :threshold " +
+                   "ORDER BY word_similarity(:search, lower(p.name)) DESC, p.product_id",
+           countQuery = "SELECT count(*) FROM products p " +
+                        "WHERE p.category_id = :categoryId " +
+                        "AND :search <% lower(p.name) AND word_similarity(:search, lower(p.name)) >= :threshold",
+           nativeQuery = true)
+    Page<ProductRow> fuzzySearchByCategory(@Param("categoryId") Long categoryId,
+                                           @Param("search") String search,
+                                           @Param("threshold") double threshold,
                                            Pageable pageable);
+
+    interface CategoryCountView {
+        Long getCategoryId();
+        Long getTotal();
+    }
+
+    interface ProductNameView {
+        Long getId();
+        String getName();
+    }
+
+    // Columns of ProductResponseDto, as returned by the native queries
+    interface ProductRow {
+        Long getId();
+        String getName();
+        String getDescription();
+        Double getPrice();
+        String getImageUrl();
+        LocalDateTime getCreatedAt();
+        Long getCategoryId();
+        String getCategoryName();
+    }
 }
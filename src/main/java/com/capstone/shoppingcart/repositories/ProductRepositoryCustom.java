@@ -0,0 +1,28 @@
+package com.capstone.shoppingcart.repositories;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Keyset (seek) query: returns products strictly after the given sort key + id,
+     * so deep pages cost the same as the first one and no COUNT is issued.
+     * @param categoryId - Optional category filter
+     * @param search - Optional LIKE filter on name/description
+     * @param sortProperty - Product property to sort by (id is always the tie-breaker)
+     * @param descending - Sort direction (applies to the tie-breaker too)
+     * @param afterValue - Sort key of the last row of the previous page (null for the first page)
+     * @param afterId - Id of the last row of the previous page (null for the first page)
+     * @param limit - Maximum rows to return
+     */
+    List<ScrollRow> scroll(Long categoryId, String search, String sortProperty, boolean descending,
+                           Object afterValue, Long afterId, int limit);
+
+    /**
+     * A product plus its sort key, which the next cursor is built from
+     */
+    record ScrollRow(ProductResponseDto product, Object sortValue) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.capstone.shoppingcart.repositories;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+import java.util.Locale;
+
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ScrollRow> scroll(Long categoryId, String search, String sortProperty, boolean descending,
+                                  Object afterValue, Long afterId, int limit) {
+        // sortProperty comes from a fixed whitelist in the service layer, never from raw input
+        String key = "p." + sortProperty;
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? " DESC" : " ASC";
+        boolean sortById = "id".equals(sortProperty);
+
+        // Same columns as ProductRepository.DTO_SELECT plus the sort key for the next cursor
+        StringBuilder jpql = new StringBuilder("SELECT new com.capstone.shoppingcart.dtos.ProductResponseDto(")
+                .append("p.id, p.name, p.description, p.price, p.imageUrl, p.createdAt, c.id, c.name), ")
+                .append(key)
+                .append(" FROM Product p JOIN p.category c WHERE 1 = 1");
+        if (categoryId != null) {
+            jpql.append(" AND c.id = :categoryId");
+        }
+        if (search != null) {
+            jpql.append(" AND (LOWER(p.name) LIKE :search OR LOWER(p.description) LIKE :search)");
+        }
+        if (afterId != null) {
+            if (sortById) {
+                jpql.append(" AND p.id ").append(comparison).append(" :afterId");
+            } else {
+                // Row-value comparison (key and id sort the same way), so PostgreSQL starts the
+                // index range scan on (key, id) at the cursor; the OR form would filter from the top
+                jpql.append(" AND (").append(key).append(", p.id) ").append(comparison)
+                        .append(" (:afterValue, :afterId)");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (!sortById) {
+            jpql.append(key).append(direction).append(", ");
+        }
+        jpql.append("p.id").append(direction);
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        if (search != null) {
+            query.setParameter("search", "%" + search.toLowerCase(Locale.ROOT) + "%");
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (!sortById) {
+                query.setParameter("afterValue", afterValue);
+            }
+        }
+        return query.setMaxResults(limit).getResultList().stream()
+                .map(row -> new ScrollRow((ProductResponseDto) row[0], row[1]))
+                .toList();
+    }
+}
@@ -1,5 +1,6 @@
 package com.capstone.shoppingcart.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -40,6 +41,9 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // Completion of an already authorized async response (e.g. the streamed product export)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        
                         // Public endpoints - no authentication required
                         .requestMatchers("/api/customer/v1/auth/**").permitAll()
                         .requestMatchers("/api/customer/v1/products/**").permitAll()
@@ -48,6 +52,7 @@ public class SecurityConfig {
                         
                         // Admin endpoints - require ADMIN role
                         .requestMatchers("/api/admin/v1/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         
                         // Customer endpoints - require authentication (any role)
                         .requestMatchers("/api/customer/v1/**").authenticated()
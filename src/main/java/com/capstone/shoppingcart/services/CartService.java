@@ -1,20 +1,36 @@
 package com.capstone.shoppingcart.services;
 
 import com.capstone.shoppingcart.dtos.AddItemToCartRequest;
+import com.capstone.shoppingcart.dtos.CartItemOperation;
 import com.capstone.shoppingcart.dtos.CartResponseDto;
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
 import com.capstone.shoppingcart.dtos.UpdateCartItemRequest;
 import com.capstone.shoppingcart.entities.Cart;
 import com.capstone.shoppingcart.entities.CartItem;
 import com.capstone.shoppingcart.entities.Product;
 import com.capstone.shoppingcart.entities.User;
+import com.capstone.shoppingcart.enums.CartOperationType;
+import com.capstone.shoppingcart.enums.CartStorageMode;
 import com.capstone.shoppingcart.mappers.CartMapper;
 import com.capstone.shoppingcart.repositories.CartItemRepository;
 import com.capstone.shoppingcart.repositories.CartRepository;
 import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.repositories.UserRepository;
+import com.capstone.shoppingcart.services.cart.CartItemIdAllocator;
+import com.capstone.shoppingcart.services.cart.WriteBehindCartStore;
+import com.capstone.shoppingcart.services.trending.TrendingService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CartService {
@@ -22,15 +38,30 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final CartMapper cartMapper;
+    private final TrendingService trendingService;
+    private final WriteBehindCartStore cartStore;
+    private final CartItemIdAllocator cartItemIdAllocator;
+    private final UserRepository userRepository;
+
+    @Value("${app.cart.storage:database}")
+    private CartStorageMode storageMode;
     
     public CartService(CartRepository cartRepository, 
                       CartItemRepository cartItemRepository,
                       ProductRepository productRepository,
-                      CartMapper cartMapper) {
+                      CartMapper cartMapper,
+                      TrendingService trendingService,
+                      WriteBehindCartStore cartStore,
+                      CartItemIdAllocator cartItemIdAllocator,
+                      UserRepository userRepository) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.cartMapper = cartMapper;
+        this.trendingService = trendingService;
+        this.cartStore = cartStore;
+        this.cartItemIdAllocator = cartItemIdAllocator;
+        this.userRepository = userRepository;
     }
 
     /**
@@ -39,8 +70,10 @@ public class CartService {
      * @return CartResponseDto containing cart details and items
      */
     public CartResponseDto getOrCreateCart(User user) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> createNewCart(user));
+        if (writeBehind()) {
+            return cartStore.getCart(user);
+        }
+        Cart cart = findCart(user);
         
         return cartMapper.toDto(cart);
     }
@@ -53,27 +86,23 @@ public class CartService {
      */
     @Transactional
     public CartResponseDto addItemToCart(User user, AddItemToCartRequest request) {
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> createNewCart(user));
-        
         Product product = productRepository.findById(request.getProductId())
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
         
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElse(null);
-        
-        if (cartItem != null) {
-            cartItem.setQuantity(cartItem.getQuantity() + request.getQuantity());
-        } else {
-            cartItem = CartItem.createNew(cart, product, request.getQuantity());
-            cart.getCartItems().add(cartItem);
+        if (writeBehind()) {
+            trendingService.recordCartAdd(product.getId());
+            return cartStore.addItem(user, product, request.getQuantity());
         }
+        // Atomic upsert instead of read-modify-write: concurrent adds (double clicks, several
+        // devices) increment one line rather than inserting duplicates or losing quantity
+        if (upsertItem(user, product, request.getQuantity()) == 0) {
+            cartRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), LocalDateTime.now());
+            upsertItem(user, product, request.getQuantity());
+        }
+        // Counted in memory; popularity is updated by the next trending flush
+        trendingService.recordCartAdd(product.getId());
         
-        cart.setUpdatedAt(LocalDateTime.now());
-        
-        Cart savedCart = cartRepository.save(cart);
-        
-        return cartMapper.toDto(savedCart);
+        return cartMapper.toDto(findCart(user));
     }
 
     /**
@@ -85,20 +114,13 @@ public class CartService {
      */
     @Transactional
     public CartResponseDto updateCartItemQuantity(User user, Long itemId, UpdateCartItemRequest request) {
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new IllegalArgumentException("Cart item not found"));
-
-        if (!cartItem.getCart().getUser().getId().equals(user.getId())) {
-            throw new IllegalArgumentException("Cart item not found");
+        if (writeBehind()) {
+            return cartStore.updateQuantity(user, itemId, request.getQuantity());
         }
+        // Relative update in one statement, like an add: a concurrent add to the line is kept
+        setQuantity(user, itemId, request.getQuantity());
 
-        cartItem.setQuantity(request.getQuantity());
-
-        Cart cart = cartItem.getCart();
-        cart.setUpdatedAt(LocalDateTime.now());
-
-        Cart savedCart = cartRepository.save(cart);
-        return cartMapper.toDto(savedCart);
+        return cartMapper.toDto(findCart(user));
     }
 
     /**
@@ -109,34 +131,184 @@ public class CartService {
      */
     @Transactional
     public CartResponseDto removeItemFromCart(User user, Long itemId) {
-        // 1. Find the cart item
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new IllegalArgumentException("Cart item not found"));
+        if (writeBehind()) {
+            return cartStore.removeItem(user, itemId);
+        }
+        // 1. Delete the item and take it out of the cart summary (only items of the user's own cart are found)
+        removeLine(user, itemId);
         
-        // 2. Verify item belongs to user's cart (security check)
-        if (!cartItem.getCart().getUser().getId().equals(user.getId())) {
+        // 2. Return the updated cart
+        return cartMapper.toDto(findCart(user));
+    }
+
+    /**
+     * Apply several item changes at once (restoring a saved cart, reorder, quantity steppers).
+     * The added products are looked up in one query and every operation is one relative update of the
+     * rows; if any operation fails, none is applied.
+     * @param user - The authenticated user
+     * @param operations - Add / set-quantity / remove operations, applied in order
+     * @return Updated cart
+     */
+    @Transactional
+    public CartResponseDto applyItemOperations(User user, List<CartItemOperation> operations) {
+        operations.forEach(CartService::checkOperation);
+        Map<Long, Product> products = findProducts(operations);
+
+        CartResponseDto result;
+        if (writeBehind()) {
+            result = cartStore.applyOperations(user, operations, products);
+        } else {
+            // Each operation is one statement on the rows (adds use the same atomic upsert as addItemToCart),
+            // so a concurrent request is never overwritten. The loaded cart only resolves operations to
+            // lines; it is reloaded after a run of adds, which may have created the lines referred to next.
+            Cart cart = findCart(user);
+            boolean stale = false;
+            for (CartItemOperation operation : operations) {
+                if (operation.getType() == CartOperationType.ADD) {
+                    upsertItem(user, products.get(operation.getProductId()), operation.getQuantity());
+                    stale = true;
+                    continue;
+                }
+                if (stale) {
+                    cart = findCart(user);
+                    stale = false;
+                }
+                CartItem line = findLine(cart, operation);
+                switch (operation.getType()) {
+                    case SET_QUANTITY -> setQuantity(user, line.getId(), operation.getQuantity());
+                    case REMOVE -> {
+                        removeLine(user, line.getId());
+                        cart.getCartItems().remove(line);
+                    }
+                    default -> throw new IllegalStateException("Unexpected operation " + operation.getType());
+                }
+            }
+            result = cartMapper.toDto(findCart(user));
+        }
+
+        operations.stream()
+                .filter(operation -> operation.getType() == CartOperationType.ADD)
+                .forEach(operation -> trendingService.recordCartAdd(operation.getProductId()));
+        return result;
+    }
+
+    /**
+     * Get the cart summary (line count, total quantity, subtotal) for the header badge.
+     * Reads the denormalized columns of a single carts row; no items or products are loaded.
+     * @param email - Email of the authenticated user
+     * @return Summary, all zero when the user has no cart yet
+     */
+    public CartSummaryDto getCartSummary(String email) {
+        if (writeBehind()) {
+            // The store is keyed by user id; a cart not held in memory has been flushed
+            Optional<CartSummaryDto> cached = userRepository.findByEmail(email)
+                    .flatMap(user -> cartStore.findSummary(user.getId()));
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return cartRepository.findSummaryByUserEmail(email)
+                .filter(summary -> summary.getSubtotalCents() != null)
+                // Not backfilled yet: fall back to summing the items once
+                .or(() -> cartRepository.findWithItemsByUserEmail(email).map(cart -> {
+                    cart.recomputeSummary();
+                    return cartMapper.toSummaryDto(cart);
+                }))
+                .orElseGet(() -> new CartSummaryDto(0, 0, 0L));
+    }
+
+    private boolean writeBehind() {
+        return storageMode == CartStorageMode.WRITE_BEHIND;
+    }
+
+    /**
+     * Load the user's cart with items, products and categories in one query
+     * (or create an empty one), so mapping it to a DTO issues no further selects
+     */
+    private Cart findCart(User user) {
+        Cart cart = cartRepository.findWithItemsByUserId(user.getId())
+                .orElseGet(() -> createNewCart(user));
+        if (cart.getSubtotalCents() == null) {
+            cart.recomputeSummary();
+        }
+        return cart;
+    }
+
+    // Looking the item up in the user's own cart doubles as the ownership check
+    private static CartItem findItem(Cart cart, Long itemId) {
+        return cart.getCartItems().stream()
+                .filter(item -> item.getId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cart item not found"));
+    }
+
+    // Fields each operation type needs beyond what bean validation checks
+    private static void checkOperation(CartItemOperation operation) {
+        boolean add = operation.getType() == CartOperationType.ADD;
+        if (add && operation.getProductId() == null) {
+            throw new IllegalArgumentException("Product ID is required to add an item");
+        }
+        if (!add && operation.getItemId() == null && operation.getProductId() == null) {
+            throw new IllegalArgumentException("Item ID or product ID is required to " +
+                    operation.getType().name().toLowerCase().replace('_', ' '));
+        }
+        if (operation.getType() != CartOperationType.REMOVE && operation.getQuantity() == null) {
+            throw new IllegalArgumentException("Quantity is required");
+        }
+    }
+
+    // Products of all ADD operations in one query
+    private Map<Long, Product> findProducts(List<CartItemOperation> operations) {
+        Set<Long> productIds = operations.stream()
+                .filter(operation -> operation.getType() == CartOperationType.ADD)
+                .map(CartItemOperation::getProductId)
+                .collect(Collectors.toSet());
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        productIds.stream()
+                .filter(productId -> !products.containsKey(productId))
+                .findFirst()
+                .ifPresent(productId -> {
+                    throw new IllegalArgumentException("Product not found with ID: " + productId);
+                });
+        return products;
+    }
+
+    private void setQuantity(User user, Long itemId, int quantity) {
+        if (cartItemRepository.setQuantityInUserCart(user.getId(), itemId, quantity, LocalDateTime.now()) == 0) {
             throw new IllegalArgumentException("Cart item not found");
         }
-        
-        // 3. Get cart and remove item
-        Cart cart = cartItem.getCart();
-        cart.getCartItems().remove(cartItem);
-        
-        // 4. Delete cart item from database
-        cartItemRepository.delete(cartItem);
-        
-        // 5. Update cart timestamp
-        cart.setUpdatedAt(LocalDateTime.now());
-        
-        // 6. Save and return updated cart
-        Cart savedCart = cartRepository.save(cart);
-        return cartMapper.toDto(savedCart);
     }
 
+    private void removeLine(User user, Long itemId) {
+        if (cartItemRepository.deleteFromUserCart(user.getId(), itemId, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
+    }
+
+    private static CartItem findLine(Cart cart, CartItemOperation operation) {
+        if (operation.getItemId() != null) {
+            return findItem(cart, operation.getItemId());
+        }
+        return cart.getCartItems().stream()
+                .filter(item -> item.getProduct().getId().equals(operation.getProductId()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cart item not found"));
+    }
+
+    private int upsertItem(User user, Product product, int quantity) {
+        return cartItemRepository.upsertIntoUserCart(user.getId(), cartItemIdAllocator.nextId(),
+                product.getId(), quantity, product.getPrice(), LocalDateTime.now());
+    }
+
+    // ON CONFLICT (user_id) DO NOTHING: when two requests create the cart at once, both load the one that won
     private Cart createNewCart(User user) {
-        Cart cart = new Cart();
-        cart.setUser(user);
-        cart.setCreatedAt(LocalDateTime.now());
-        return cartRepository.save(cart);
+        cartRepository.insertIfAbsent(UUID.randomUUID(), user.getId(), LocalDateTime.now());
+        return cartRepository.findWithItemsByUserId(user.getId())
+                .orElseThrow(() -> new IllegalStateException("Cart not found after insert"));
     }
 }
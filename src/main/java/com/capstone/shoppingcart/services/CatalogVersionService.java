@@ -0,0 +1,72 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the public catalog, used as strong ETags so unchanged responses can be
+ * answered with 304 without touching the database.
+ *
+ * Counters are bumped after the admin transaction commits and live in memory only, so every
+ * ETag also carries the time this instance started: a restart invalidates all of them.
+ */
+@Service
+public class CatalogVersionService {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<Long, AtomicLong> categoryVersions = new ConcurrentHashMap<>();
+    private final PromotionSchedule promotionSchedule;
+
+    public CatalogVersionService(PromotionSchedule promotionSchedule) {
+        this.promotionSchedule = promotionSchedule;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        bump(event.categoryIds());
+    }
+
+    /**
+     * Invalidate the catalog ETag and those of the given categories
+     * @param categoryIds - categories whose responses changed
+     */
+    public void bump(Collection<Long> categoryIds) {
+        catalogVersion.incrementAndGet();
+        categoryIds.forEach(categoryId ->
+                categoryVersions.computeIfAbsent(categoryId, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    /**
+     * ETag for anything derived from the whole product catalog (listings, search, product detail)
+     */
+    public String catalogETag() {
+        return eTag("c" + catalogVersion.get());
+    }
+
+    /**
+     * ETag for a category and the products in it
+     */
+    public String categoryETag(Long categoryId) {
+        AtomicLong version = categoryVersions.get(categoryId);
+        return eTag("k" + categoryId + "." + (version != null ? version.get() : 0));
+    }
+
+    /**
+     * ETag for the public promotion endpoints. Changes whenever the active list is swapped,
+     * i.e. after admin writes and when a promotion starts or ends.
+     */
+    public String promotionsETag() {
+        return eTag("p" + promotionSchedule.generation());
+    }
+
+    private String eTag(String version) {
+        return "\"" + Long.toString(epoch, 36) + "-" + version + "\"";
+    }
+}
@@ -1,35 +1,28 @@
 package com.capstone.shoppingcart.services;
 
 import com.capstone.shoppingcart.dtos.CategoryResponseDto;
+import com.capstone.shoppingcart.dtos.CursorPageDto;
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
-import com.capstone.shoppingcart.entities.Category;
-import com.capstone.shoppingcart.mappers.CategoryMapper;
-import com.capstone.shoppingcart.mappers.ProductMapper;
-import com.capstone.shoppingcart.repositories.CategoryRepository;
-import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.enums.ProductSort;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class CategoryService {
 
-    private final CategoryRepository categoryRepository;
-    private final CategoryMapper categoryMapper;
-    private final ProductRepository productRepository;
-    private final ProductMapper productMapper;
+    private final CategorySnapshot categorySnapshot;
+    private final ProductService productService;
 
-    public CategoryService(CategoryRepository categoryRepository,
-                          CategoryMapper categoryMapper,
-                          ProductRepository productRepository,
-                          ProductMapper productMapper) {
-        this.categoryRepository = categoryRepository;
-        this.categoryMapper = categoryMapper;
-        this.productRepository = productRepository;
-        this.productMapper = productMapper;
+    // Concurrent identical requests share one database round trip
+    private final SingleFlight<CategoryPageKey, Page<ProductResponseDto>> categoryPageLoads = new SingleFlight<>();
+
+    public CategoryService(CategorySnapshot categorySnapshot,
+                          ProductService productService) {
+        this.categorySnapshot = categorySnapshot;
+        this.productService = productService;
     }
 
     /**
@@ -37,10 +30,7 @@ public class CategoryService {
      * @return List of all categories
      */
     public List<CategoryResponseDto> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
-        return categories.stream()
-                .map(categoryMapper::toDto)
-                .collect(Collectors.toList());
+        return categorySnapshot.all();
     }
 
     /**
@@ -49,25 +39,46 @@ public class CategoryService {
      * @return Category details
      */
     public CategoryResponseDto getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        return categorySnapshot.find(id)
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
-        return categoryMapper.toDto(category);
     }
 
     /**
      * Get products in a category with pagination
      * @param categoryId - Category ID
      * @param pageable - Pagination and sorting parameters
+     * @param exactCount - Run COUNT(*) for the total instead of using the cached estimate
      * @return Page of products in the category
      */
-    public Page<ProductResponseDto> getProductsByCategory(Long categoryId, Pageable pageable) {
+    public Page<ProductResponseDto> getProductsByCategory(Long categoryId, Pageable pageable, boolean exactCount) {
         // Verify category exists
-        categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new IllegalArgumentException("Category not found"));
-        
-        Page<com.capstone.shoppingcart.entities.Product> products = 
-                productRepository.findByCategory_Id(categoryId, pageable);
-        
-        return products.map(productMapper::toDto);
+        if (!categorySnapshot.exists(categoryId)) {
+            throw new IllegalArgumentException("Category not found");
+        }
+
+        return categoryPageLoads.load(new CategoryPageKey(categoryId, pageable, exactCount),
+                () -> productService.getProductsByCategory(categoryId, pageable, exactCount));
+    }
+
+    /**
+     * Get products in a category with cursor (keyset) pagination
+     * @param categoryId - Category ID
+     * @param sort - Supported sort order
+     * @param sortDir - asc, desc or null for the sort's default direction
+     * @param size - Slice size
+     * @param after - Cursor from the previous slice (empty for the first slice)
+     * @return Slice of products in the category
+     */
+    public CursorPageDto<ProductResponseDto> scrollProductsByCategory(Long categoryId, ProductSort sort,
+                                                                      String sortDir, int size, String after) {
+        // Verify category exists
+        if (!categorySnapshot.exists(categoryId)) {
+            throw new IllegalArgumentException("Category not found");
+        }
+
+        return productService.scrollProducts(categoryId, null, sort, sortDir, size, after);
+    }
+
+    private record CategoryPageKey(Long categoryId, Pageable pageable, boolean exactCount) {
     }
 }
@@ -0,0 +1,125 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.dtos.CategoryResponseDto;
+import com.capstone.shoppingcart.mappers.CategoryMapper;
+import com.capstone.shoppingcart.repositories.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable in-memory copy of all categories, swapped atomically on refresh.
+ * Categories are few and nearly static, so reads (list, lookup, existence checks) never
+ * go to the database. Refreshed on startup (after seeding) and periodically.
+ */
+@Component
+public class CategorySnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CategorySnapshot.class);
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapper categoryMapper;
+    private final CatalogVersionService catalogVersionService;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public CategorySnapshot(CategoryRepository categoryRepository, CategoryMapper categoryMapper,
+                            CatalogVersionService catalogVersionService) {
+        this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.catalog.categories.refresh-interval:300000}",
+               initialDelayString = "${app.catalog.categories.refresh-interval:300000}")
+    public void refresh() {
+        List<CategoryResponseDto> categories = categoryRepository.findAll().stream()
+                .map(categoryMapper::toDto)
+                .toList();
+
+        Map<Long, CategoryResponseDto> byId = new HashMap<>();
+        Map<String, Long> idsByName = new HashMap<>();
+        long[] ids = new long[categories.size()];
+        for (int i = 0; i < categories.size(); i++) {
+            byId.put(categories.get(i).getId(), categories.get(i));
+            idsByName.putIfAbsent(nameKey(categories.get(i).getName()), categories.get(i).getId());
+            ids[i] = categories.get(i).getId();
+        }
+        Arrays.sort(ids);
+
+        Snapshot previous = current.getAndSet(new Snapshot(categories, Map.copyOf(byId), Map.copyOf(idsByName), ids));
+        if (previous != null) {
+            // Categories edited behind the admin API (or on another instance) must not keep serving 304s
+            Set<Long> changed = changedIds(previous.byId(), byId);
+            if (!changed.isEmpty()) {
+                catalogVersionService.bump(changed);
+            }
+        }
+        log.debug("Category snapshot refreshed. categories={}", categories.size());
+    }
+
+    /**
+     * All categories (immutable)
+     */
+    public List<CategoryResponseDto> all() {
+        return snapshot().categories();
+    }
+
+    public Optional<CategoryResponseDto> find(Long id) {
+        return Optional.ofNullable(snapshot().byId().get(id));
+    }
+
+    /**
+     * Resolve a category by name, ignoring case and surrounding whitespace
+     */
+    public Optional<Long> findIdByName(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(snapshot().idsByName().get(nameKey(name)));
+    }
+
+    public boolean exists(Long id) {
+        return id != null && Arrays.binarySearch(snapshot().ids(), id) >= 0;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            // Requests can arrive before ApplicationReadyEvent (e.g. while data is seeded)
+            refresh();
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    private static Set<Long> changedIds(Map<Long, CategoryResponseDto> before, Map<Long, CategoryResponseDto> after) {
+        Set<Long> changed = new HashSet<>();
+        after.forEach((id, category) -> {
+            if (!category.equals(before.get(id))) {
+                changed.add(id);
+            }
+        });
+        before.keySet().stream().filter(id -> !after.containsKey(id)).forEach(changed::add);
+        return changed;
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Snapshot(List<CategoryResponseDto> categories, Map<Long, CategoryResponseDto> byId,
+                            Map<String, Long> idsByName, long[] ids) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.dtos.EstimatedPage;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cached product counts (overall and per category) used as page totals instead of running
+ * COUNT(*) with every listing request. Fully recounted periodically and after bulk changes;
+ * single-product changes only recount the categories they touch. Listings fetch one row
+ * past the page so the next-page flag stays exact either way.
+ */
+@Component
+public class ProductCountEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCountEstimator.class);
+
+    private final ProductRepository productRepository;
+
+    // Replaced as a whole on refresh so readers always see a consistent snapshot
+    private volatile Counts counts = new Counts(0, Map.of());
+
+    public ProductCountEstimator(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.catalog.count.refresh-interval:60000}",
+               initialDelayString = "${app.catalog.count.refresh-interval:60000}")
+    public synchronized void refresh() {
+        Map<Long, Long> byCategory = new HashMap<>();
+        long total = 0;
+        for (ProductRepository.CategoryCountView row : productRepository.countByCategory()) {
+            byCategory.put(row.getCategoryId(), row.getTotal());
+            total += row.getTotal();
+        }
+        counts = new Counts(total, Map.copyOf(byCategory));
+        log.debug("Product counts refreshed. total={}, categories={}", total, byCategory.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.reloadAll()) {
+            refresh();
+        } else if (!event.categoryIds().isEmpty()) {
+            refresh(event.categoryIds());
+        }
+    }
+
+    /**
+     * Recount only the given categories (index range scans) and adjust the total by the difference
+     * @param categoryIds - Categories whose product count may have changed
+     */
+    public synchronized void refresh(Set<Long> categoryIds) {
+        Map<Long, Long> byCategory = new HashMap<>(counts.byCategory());
+        long total = counts.total();
+        for (Long categoryId : categoryIds) {
+            Long previous = byCategory.remove(categoryId);
+            total -= previous != null ? previous : 0;
+        }
+        for (ProductRepository.CategoryCountView row : productRepository.countByCategory(categoryIds)) {
+            byCategory.put(row.getCategoryId(), row.getTotal());
+            total += row.getTotal();
+        }
+        counts = new Counts(total, Map.copyOf(byCategory));
+        log.debug("Product counts adjusted. total={}, categories={}", total, categoryIds);
+    }
+
+    /**
+     * Turn a slice (fetched without a count query) into a page with an estimated total
+     * @param slice - Page content plus whether more rows follow
+     * @param categoryId - Category the slice was filtered by, or null for the whole catalog
+     * @return Page flagged as approximate unless the slice reached the last row
+     */
+    public <T> Page<T> toPage(Slice<T> slice, Long categoryId) {
+        long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+
+        // The last page tells us the exact total for free
+        if (!slice.hasNext() && (slice.hasContent() || slice.getNumber() == 0)) {
+            return new EstimatedPage<>(slice.getContent(), slice.getPageable(), seen, false);
+        }
+
+        Counts snapshot = counts;
+        long estimate = categoryId == null ? snapshot.total() : snapshot.byCategory().getOrDefault(categoryId, 0L);
+        // Never report fewer rows than the slice has proven to exist
+        long total = slice.hasNext() ? Math.max(estimate, seen + 1) : estimate;
+        return new EstimatedPage<>(slice.getContent(), slice.getPageable(), total, true);
+    }
+
+    private record Counts(long total, Map<Long, Long> byCategory) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.capstone.shoppingcart.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Opaque cursor for keyset pagination of products.
+ * Encodes the sort it was issued for plus the sort key and id of the last row,
+ * so a cursor cannot be replayed against a different ordering.
+ */
+final class ProductCursor {
+
+    // Relevance is the in-memory search score; the others are Product properties
+    static final String RELEVANCE = "relevance";
+
+    // Sort properties (see ProductSort) and how to parse their values back
+    private static final Map<String, Function<String, Object>> SORT_KEYS = Map.of(
+            "id", Long::valueOf,
+            "name", value -> value,
+            "price", Double::valueOf,
+            "createdAt", LocalDateTime::parse,
+            "popularity", Long::valueOf,
+            RELEVANCE, Double::valueOf
+    );
+
+    private static final String VERSION = "v1";
+
+    private ProductCursor() {
+    }
+
+    static String encode(String sortBy, boolean descending, Object value, Long id) {
+        // The value goes last so it may contain any character, including the separator
+        String raw = String.join("\n", VERSION, sortBy, descending ? "desc" : "asc", id.toString(), String.valueOf(value));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor issued for the same sort
+     * @return Position of the last row, or null for an empty cursor (first page)
+     */
+    static Position decode(String cursor, String sortBy, boolean descending) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split("\n", 5);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        if (parts.length != 5 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!sortBy.equals(parts[1]) || !(descending ? "desc" : "asc").equals(parts[2])) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+
+        try {
+            return new Position(SORT_KEYS.get(sortBy).apply(parts[4]), Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            // NumberFormatException is an IllegalArgumentException as well
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    record Position(Object value, Long id) {
+    }
+}
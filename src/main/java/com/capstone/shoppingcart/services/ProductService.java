@@ -1,65 +1,177 @@
 package com.capstone.shoppingcart.services;
 
+import com.capstone.shoppingcart.config.CacheConfig;
+import com.capstone.shoppingcart.dtos.CursorPageDto;
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
-import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.dtos.ProductSearchPage;
+import com.capstone.shoppingcart.dtos.ProductSortDto;
+import com.capstone.shoppingcart.enums.ProductSort;
+import com.capstone.shoppingcart.enums.SearchMode;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
 import com.capstone.shoppingcart.mappers.ProductMapper;
 import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.repositories.ProductRepositoryCustom;
+import com.capstone.shoppingcart.services.recommendation.CartCooccurrenceRecommender;
+import com.capstone.shoppingcart.services.recommendation.WishlistSimilarityRecommender;
+import com.capstone.shoppingcart.services.search.ProductSearchIndex;
+import com.capstone.shoppingcart.services.search.SearchTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCountEstimator productCountEstimator;
+    private final CacheManager cacheManager;
+    private final CartCooccurrenceRecommender cartCooccurrenceRecommender;
+    private final WishlistSimilarityRecommender wishlistSimilarityRecommender;
+
+    @Value("${app.search.mode:index}")
+    private SearchMode searchMode;
+
+    @Value("${app.search.fuzzy.enabled:true}")
+    private boolean fuzzyEnabled;
 
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    // Minimum trigram similarity (0..1) for a fuzzy match
+    @Value("${app.search.fuzzy.threshold:0.3}")
+    private double fuzzyThreshold;
+
+    public ProductService(ProductRepository productRepository,
+                          ProductMapper productMapper,
+                          ProductSearchIndex productSearchIndex,
+                          ProductCountEstimator productCountEstimator,
+                          CacheManager cacheManager,
+                          CartCooccurrenceRecommender cartCooccurrenceRecommender,
+                          WishlistSimilarityRecommender wishlistSimilarityRecommender) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.productSearchIndex = productSearchIndex;
+        this.productCountEstimator = productCountEstimator;
+        this.cacheManager = cacheManager;
+        this.cartCooccurrenceRecommender = cartCooccurrenceRecommender;
+        this.wishlistSimilarityRecommender = wishlistSimilarityRecommender;
     }
 
     /**
      * Get all products with pagination
      * @param pageable - Pagination and sorting parameters
+     * @param exactCount - Run COUNT(*) for the total instead of using the cached estimate
      * @return Page of products
      */
-    public Page<ProductResponseDto> getAllProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findAll(pageable);
-        return products.map(productMapper::toDto);
+    public Page<ProductResponseDto> getAllProducts(Pageable pageable, boolean exactCount) {
+        if (exactCount) {
+            return productRepository.findDtoPage(pageable);
+        }
+        return productCountEstimator.toPage(productRepository.findDtoSlice(pageable), null);
     }
 
     /**
-     * Get product by ID
+     * Get product by ID (served from the products cache; unknown ids are not cached).
+     * sync = true makes concurrent misses for the same id wait for a single database load.
      * @param id - Product ID
      * @return Product details
      */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id", sync = true)
     public ProductResponseDto getProductById(Long id) {
-        Product product = productRepository.findById(id)
+        return productRepository.findDtoById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-        return productMapper.toDto(product);
+    }
+
+    /**
+     * Products frequently bought together with the given one (precomputed from cart contents)
+     * @param id - Product ID
+     * @param limit - Maximum number of products
+     * @return Related products, strongest first (empty when there is not enough cart data)
+     */
+    public List<ProductResponseDto> getRelatedProducts(Long id, int limit) {
+        return findRankedProducts(cartCooccurrenceRecommender.relatedProductIds(id), limit);
+    }
+
+    /**
+     * Products customers also wishlisted (precomputed Jaccard similarity over wish lists)
+     * @param id - Product ID
+     * @param limit - Maximum number of products
+     * @return Similar products, most similar first (empty when there is not enough wish list data)
+     */
+    public List<ProductResponseDto> getAlsoWishlistedProducts(Long id, int limit) {
+        return findRankedProducts(wishlistSimilarityRecommender.similarProductIds(id), limit);
+    }
+
+    // Load precomputed neighbours in rank order, skipping products deleted since they were computed
+    private List<ProductResponseDto> findRankedProducts(long[] ranked, int limit) {
+        List<Long> ids = Arrays.stream(ranked).limit(Math.max(limit, 0)).boxed().toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ProductResponseDto> products = productRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponseDto::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Evict products changed by admin operations once their transaction has committed,
+     * so a concurrent read cannot re-cache the old row
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null && event.reloadAll()) {
+            products.clear();
+        } else if (products != null) {
+            event.productIds().forEach(products::evict);
+        }
     }
 
     /**
      * Get products by category with pagination
      * @param categoryId - Category ID to filter by
      * @param pageable - Pagination and sorting parameters
+     * @param exactCount - Run COUNT(*) for the total instead of using the cached estimate
      * @return Page of products in the category
      */
-    public Page<ProductResponseDto> getProductsByCategory(Long categoryId, Pageable pageable) {
-        Page<Product> products = productRepository.findByCategory_Id(categoryId, pageable);
-        return products.map(productMapper::toDto);
+    public Page<ProductResponseDto> getProductsByCategory(Long categoryId, Pageable pageable, boolean exactCount) {
+        if (exactCount) {
+            return productRepository.findDtoPageByCategoryId(categoryId, pageable);
+        }
+        return productCountEstimator.toPage(productRepository.findDtoSliceByCategoryId(categoryId, pageable), categoryId);
     }
 
     /**
      * Search products by name or description
+     * In INDEX and FULL_TEXT mode results are ranked by relevance and the sort is ignored.
+     * When nothing matches, a typo-tolerant search runs and the page carries a suggestion.
      * @param search - Search keyword
      * @param pageable - Pagination and sorting parameters
      * @return Page of matching products
      */
     public Page<ProductResponseDto> searchProducts(String search, Pageable pageable) {
-        Page<Product> products = productRepository.searchProducts(search, pageable);
-        return products.map(productMapper::toDto);
+        return search(null, search, pageable);
     }
 
     /**
@@ -70,7 +182,151 @@ public class ProductService {
      * @return Page of matching products in the category
      */
     public Page<ProductResponseDto> searchProductsByCategory(Long categoryId, String search, Pageable pageable) {
-        Page<Product> products = productRepository.searchProductsByCategory(categoryId, search, pageable);
-        return products.map(productMapper::toDto);
+        return search(categoryId, search, pageable);
+    }
+
+    private Page<ProductResponseDto> search(Long categoryId, String search, Pageable pageable) {
+        Page<ProductResponseDto> products = exactSearch(categoryId, search, pageable);
+        if (products.getTotalElements() > 0 || !fuzzyEnabled || pageable.getPageNumber() > 0) {
+            return products;
+        }
+        return fuzzySearch(categoryId, search, pageable);
+    }
+
+    private Page<ProductResponseDto> exactSearch(Long categoryId, String search, Pageable pageable) {
+        if (useIndex()) {
+            return productSearchIndex.search(search, categoryId, pageable);
+        }
+        if (searchMode == SearchMode.FULL_TEXT) {
+            String query = toPrefixTsQuery(search);
+            if (query == null) {
+                return Page.empty(pageable);
+            }
+            Page<ProductRepository.ProductRow> products = categoryId == null
+                    ? productRepository.fullTextSearch(query, unsorted(pageable))
+                    : productRepository.fullTextSearchByCategory(categoryId, query, unsorted(pageable));
+            return products.map(productMapper::toDto);
+        }
+        return categoryId == null
+                ? productRepository.searchProducts(search, pageable)
+                : productRepository.searchProductsByCategory(categoryId, search, pageable);
+    }
+
+    /**
+     * Typo-tolerant search used when the exact search found nothing.
+     * The in-memory index corrects each word against its trigram dictionary and suggests the
+     * corrected query; the database modes match names through the pg_trgm index and suggest
+     * the closest product name.
+     */
+    private Page<ProductResponseDto> fuzzySearch(Long categoryId, String search, Pageable pageable) {
+        if (useIndex()) {
+            String corrected = productSearchIndex.correct(search, fuzzyThreshold);
+            if (corrected == null) {
+                return Page.empty(pageable);
+            }
+            Page<ProductResponseDto> products = productSearchIndex.search(corrected, categoryId, pageable);
+            return new ProductSearchPage(products.getContent(), pageable, products.getTotalElements(), corrected);
+        }
+
+        String normalized = String.join(" ", SearchTokenizer.tokenize(search));
+        if (normalized.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Page<ProductRepository.ProductRow> products = categoryId == null
+                ? productRepository.fuzzySearch(normalized, fuzzyThreshold, unsorted(pageable))
+                : productRepository.fuzzySearchByCategory(categoryId, normalized, fuzzyThreshold, unsorted(pageable));
+        if (products.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        List<ProductResponseDto> content = products.map(productMapper::toDto).getContent();
+        return new ProductSearchPage(content, pageable, products.getTotalElements(), content.get(0).getName());
+    }
+
+    /**
+     * Keyset (cursor) pagination for listings, category listings and search.
+     * Each slice seeks past the last row of the previous one, so deep pages cost the same
+     * as the first and no COUNT query is issued.
+     * @param categoryId - Optional category filter
+     * @param search - Optional search keyword (ranked by relevance when the index is used)
+     * @param sort - Supported sort order
+     * @param sortDir - asc, desc or null for the sort's default direction
+     * @param size - Slice size
+     * @param after - Cursor from the previous slice (empty for the first slice)
+     * @return Slice of products with the cursor for the next one
+     */
+    public CursorPageDto<ProductResponseDto> scrollProducts(Long categoryId, String search, ProductSort sort,
+                                                            String sortDir, int size, String after) {
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        if (search != null && useIndex()) {
+            ProductCursor.Position position = ProductCursor.decode(after, ProductCursor.RELEVANCE, true);
+            List<ProductSearchIndex.ScoredProduct> scored = productSearchIndex.scroll(search, categoryId,
+                    position != null ? (Double) position.value() : null,
+                    position != null ? position.id() : null,
+                    limit + 1);
+
+            boolean hasNext = scored.size() > limit;
+            List<ProductSearchIndex.ScoredProduct> slice = hasNext ? scored.subList(0, limit) : scored;
+            List<ProductResponseDto> content = new ArrayList<>(slice.size());
+            slice.forEach(result -> content.add(result.product()));
+
+            String nextCursor = null;
+            if (hasNext) {
+                ProductSearchIndex.ScoredProduct last = slice.get(slice.size() - 1);
+                nextCursor = ProductCursor.encode(ProductCursor.RELEVANCE, true, last.score(), last.product().getId());
+            }
+            return new CursorPageDto<>(content, content.size(), hasNext, nextCursor);
+        }
+
+        String sortBy = sort.getProperty();
+        boolean descending = sort.direction(sortDir) == Sort.Direction.DESC;
+        ProductCursor.Position position = ProductCursor.decode(after, sortBy, descending);
+
+        List<ProductRepositoryCustom.ScrollRow> rows = productRepository.scroll(categoryId, search, sortBy, descending,
+                position != null ? position.value() : null,
+                position != null ? position.id() : null,
+                limit + 1);
+
+        boolean hasNext = rows.size() > limit;
+        List<ProductRepositoryCustom.ScrollRow> slice = hasNext ? rows.subList(0, limit) : rows;
+        List<ProductResponseDto> content = slice.stream().map(ProductRepositoryCustom.ScrollRow::product).toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductRepositoryCustom.ScrollRow last = slice.get(slice.size() - 1);
+            nextCursor = ProductCursor.encode(sortBy, descending, last.sortValue(), last.product().getId());
+        }
+        return new CursorPageDto<>(content, content.size(), hasNext, nextCursor);
+    }
+
+    /**
+     * Sort orders accepted by product listings
+     * @return Sort keys with their default direction
+     */
+    public List<ProductSortDto> getSortOptions() {
+        return Arrays.stream(ProductSort.values())
+                .map(sort -> new ProductSortDto(sort.getKey(), sort.getDefaultDirection().name().toLowerCase(Locale.ROOT)))
+                .toList();
+    }
+
+    private boolean useIndex() {
+        return searchMode == SearchMode.INDEX && productSearchIndex.isReady();
+    }
+
+    /**
+     * Build a tsquery where every word must match and the last word matches as a prefix,
+     * e.g. "wireless mou" -> "wireless & mou:*". Tokens are alphanumeric so they need no escaping.
+     */
+    private String toPrefixTsQuery(String search) {
+        List<String> tokens = SearchTokenizer.tokenize(search);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        return String.join(" & ", tokens) + ":*";
+    }
+
+    // Ranked native queries define their own ORDER BY
+    private Pageable unsorted(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
     }
 }
@@ -0,0 +1,163 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.dtos.PromotionResponseDto;
+import com.capstone.shoppingcart.events.PromotionsChangedEvent;
+import com.capstone.shoppingcart.mappers.PromotionMapper;
+import com.capstone.shoppingcart.repositories.PromotionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Precomputed list of active promotions.
+ *
+ * All promotions are loaded once into a timeline of start/end transitions; the active list is
+ * rebuilt and swapped exactly when the next transition is due, and reloaded after admin writes.
+ * Readers only dereference a volatile field.
+ */
+@Component
+public class PromotionSchedule {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionSchedule.class);
+
+    // Same order the homepage banner has always used
+    private static final Comparator<PromotionResponseDto> DISPLAY_ORDER =
+            Comparator.comparing(PromotionResponseDto::getDisplayOrder)
+                    .thenComparing(PromotionResponseDto::getCreatedAt, Comparator.reverseOrder());
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionMapper promotionMapper;
+    private final TaskScheduler taskScheduler;
+
+    private volatile Timeline timeline;
+    private volatile Active active;
+    private ScheduledFuture<?> nextTransition;
+
+    public PromotionSchedule(PromotionRepository promotionRepository,
+                             PromotionMapper promotionMapper,
+                             TaskScheduler taskScheduler) {
+        this.promotionRepository = promotionRepository;
+        this.promotionMapper = promotionMapper;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionsChanged(PromotionsChangedEvent event) {
+        reload();
+    }
+
+    /**
+     * Promotions active right now, in display order (immutable)
+     */
+    public List<PromotionResponseDto> activePromotions() {
+        return current().promotions();
+    }
+
+    public PromotionResponseDto findActive(Long id) {
+        return current().byId().get(id);
+    }
+
+    /**
+     * Incremented whenever the active list is swapped (used for ETags)
+     */
+    public long generation() {
+        return current().generation();
+    }
+
+    private synchronized void reload() {
+        List<PromotionResponseDto> promotions = promotionRepository.findAll().stream()
+                .filter(promotion -> !Boolean.FALSE.equals(promotion.getIsActive()))
+                .map(promotionMapper::toDto)
+                .sorted(DISPLAY_ORDER)
+                .toList();
+
+        // A promotion becomes active at startAt and stays active through endAt
+        LocalDateTime[] transitions = promotions.stream()
+                .flatMap(promotion -> Stream.of(
+                        promotion.getStartAt(),
+                        promotion.getEndAt() != null ? promotion.getEndAt().plusNanos(1) : null))
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toArray(LocalDateTime[]::new);
+
+        timeline = new Timeline(promotions, transitions);
+        log.info("Promotion schedule loaded. promotions={}, transitions={}", promotions.size(), transitions.length);
+        advance();
+    }
+
+    /**
+     * Swap in the promotions active now and schedule the next swap at the following transition
+     */
+    private synchronized void advance() {
+        Timeline current = timeline;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<PromotionResponseDto> promotions = current.promotions().stream()
+                .filter(promotion -> isActiveAt(promotion, now))
+                .toList();
+        Map<Long, PromotionResponseDto> byId = promotions.stream()
+                .collect(Collectors.toUnmodifiableMap(PromotionResponseDto::getId, Function.identity()));
+        long generation = active != null ? active.generation() + 1 : 1;
+        active = new Active(promotions, byId, generation);
+
+        if (nextTransition != null) {
+            nextTransition.cancel(false);
+            nextTransition = null;
+        }
+        LocalDateTime next = nextAfter(current.transitions(), now);
+        if (next != null) {
+            nextTransition = taskScheduler.schedule(this::advance, next.atZone(ZoneId.systemDefault()).toInstant());
+        }
+        log.debug("Active promotions swapped. active={}, next={}", promotions.size(), next);
+    }
+
+    private Active current() {
+        Active snapshot = active;
+        if (snapshot == null) {
+            // Requests can arrive before ApplicationReadyEvent
+            reload();
+            snapshot = active;
+        }
+        return snapshot;
+    }
+
+    private static boolean isActiveAt(PromotionResponseDto promotion, LocalDateTime now) {
+        boolean started = promotion.getStartAt() == null || !promotion.getStartAt().isAfter(now);
+        boolean ended = promotion.getEndAt() != null && promotion.getEndAt().isBefore(now);
+        return started && !ended;
+    }
+
+    private static LocalDateTime nextAfter(LocalDateTime[] transitions, LocalDateTime now) {
+        int index = Arrays.binarySearch(transitions, now);
+        int next = index >= 0 ? index + 1 : -index - 1;
+        return next < transitions.length ? transitions[next] : null;
+    }
+
+    private record Timeline(List<PromotionResponseDto> promotions, LocalDateTime[] transitions) {
+    }
+
+    private record Active(List<PromotionResponseDto> promotions, Map<Long, PromotionResponseDto> byId, long generation) {
+    }
+}
@@ -70,6 +70,7 @@ public class WishListService {
         }
         
         wishList.getProducts().add(product);
+        wishList.setUpdatedAt(LocalDateTime.now());
         WishList savedWishList = wishListRepository.save(wishList);
         
         return toDto(savedWishList);
@@ -96,6 +97,7 @@ public class WishListService {
             throw new IllegalArgumentException("Product not in wishlist");
         }
         
+        wishList.setUpdatedAt(LocalDateTime.now());
         WishList savedWishList = wishListRepository.save(wishList);
         return toDto(savedWishList);
     }
@@ -111,6 +113,7 @@ public class WishListService {
         
         if (wishList.getProducts() != null) {
             wishList.getProducts().clear();
+            wishList.setUpdatedAt(LocalDateTime.now());
             wishListRepository.save(wishList);
         }
     }
@@ -1,28 +1,61 @@
 package com.capstone.shoppingcart.services.admin;
 
+import com.capstone.shoppingcart.dtos.BulkProductUpdateRequest;
+import com.capstone.shoppingcart.dtos.BulkProductUpdateResultDto;
+import com.capstone.shoppingcart.dtos.CategoryPriceRule;
 import com.capstone.shoppingcart.dtos.CreateProductRequest;
 import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.dtos.ProductUpdateItem;
 import com.capstone.shoppingcart.dtos.UpdateProductRequest;
 import com.capstone.shoppingcart.entities.Category;
 import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
 import com.capstone.shoppingcart.mappers.ProductMapper;
 import com.capstone.shoppingcart.repositories.CategoryRepository;
 import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.services.ProductCountEstimator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class AdminProductService {
     
+    // Category-wide price changes in one statement; rule categories are unique
+    private static final String APPLY_PRICE_RULES =
+            "UPDATE products p SET price = round((p.price * (100 + r.percent) / 100)::numeric, 2)::float8, updated_at = ? " +
+            "FROM unnest(?::bigint[], ?::float8[]) AS r(category_id, percent) " +
+            "WHERE p.category_id = r.category_id " +
+            "RETURNING p.product_id, p.category_id";
+    
+    // Explicit values in one statement; null keeps the current value
+    private static final String APPLY_ITEMS =
+            "UPDATE products p SET price = coalesce(v.price, p.price), stock = coalesce(v.stock, p.stock), updated_at = ? " +
+            "FROM unnest(?::bigint[], ?::float8[], ?::int[]) AS v(product_id, price, stock) " +
+            "WHERE p.product_id = v.product_id " +
+            "RETURNING p.product_id, p.category_id";
+    
+    // Beyond this, the change event asks listeners to reload everything instead of listing ids
+    private static final int MAX_LISTED_PRODUCTS = 1000;
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductCountEstimator productCountEstimator;
+    private final JdbcTemplate jdbcTemplate;
     
     /**
      * Create new product
@@ -48,6 +81,7 @@ public class AdminProductService {
         
         // 3. Save to database
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.of(savedProduct.getId(), category.getId()));
         
         // 4. Convert to DTO and return
         return productMapper.toDto(savedProduct);
@@ -64,6 +98,7 @@ public class AdminProductService {
         // 1. Find product (throw error if not exists)
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        Long previousCategoryId = product.getCategory().getId();
         
         // 2. Update only provided fields
         if (request.getName() != null) {
@@ -92,6 +127,8 @@ public class AdminProductService {
         
         // 4. Save and return
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.of(productId,
+                previousCategoryId, updatedProduct.getCategory().getId()));
         return productMapper.toDto(updatedProduct);
     }
     
@@ -102,21 +139,92 @@ public class AdminProductService {
     @Transactional
     public void deleteProduct(Long productId) {
         // 1. Check if product exists
-        if (!productRepository.existsById(productId)) {
-            throw new IllegalArgumentException("Product not found with ID: " + productId);
-        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
         
         // 2. Delete product
-        productRepository.deleteById(productId);
+        productRepository.delete(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.of(productId, product.getCategory().getId()));
+    }
+    
+    /**
+     * Apply many price/stock changes at once with set-based UPDATEs instead of loading each product
+     * @param request - Category price rules (applied first) and explicit per-product values
+     * @return Number of distinct products changed
+     */
+    @Transactional
+    public BulkProductUpdateResultDto bulkUpdate(BulkProductUpdateRequest request) {
+        List<CategoryPriceRule> rules = request.getRules() != null ? request.getRules() : List.of();
+        List<ProductUpdateItem> items = request.getItems() != null ? request.getItems() : List.of();
+        if (rules.isEmpty() && items.isEmpty()) {
+            throw new IllegalArgumentException("No rules or items to apply");
+        }
+        if (rules.stream().map(CategoryPriceRule::getCategoryId).distinct().count() != rules.size()) {
+            throw new IllegalArgumentException("Each category may appear in only one rule");
+        }
+        if (items.stream().map(ProductUpdateItem::getProductId).distinct().count() != items.size()) {
+            throw new IllegalArgumentException("Each product may appear in only one item");
+        }
+        for (ProductUpdateItem item : items) {
+            if (item.getPrice() == null && item.getStock() == null) {
+                throw new IllegalArgumentException("Item for product " + item.getProductId() + " has no price or stock");
+            }
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        
+        if (!rules.isEmpty()) {
+            update(APPLY_PRICE_RULES, productIds, categoryIds, now,
+                    new SqlArray("bigint", rules.stream().map(CategoryPriceRule::getCategoryId).toArray()),
+                    new SqlArray("float8", rules.stream().map(CategoryPriceRule::getPriceChangePercent).toArray()));
+        }
+        if (!items.isEmpty()) {
+            update(APPLY_ITEMS, productIds, categoryIds, now,
+                    new SqlArray("bigint", items.stream().map(ProductUpdateItem::getProductId).toArray()),
+                    new SqlArray("float8", items.stream().map(ProductUpdateItem::getPrice).toArray()),
+                    new SqlArray("int", items.stream().map(ProductUpdateItem::getStock).toArray()));
+        }
+        
+        // One notification for the whole batch, delivered after commit
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(productIds.size() > MAX_LISTED_PRODUCTS
+                    ? ProductCatalogChangedEvent.bulk(categoryIds)
+                    : new ProductCatalogChangedEvent(Set.copyOf(productIds), Set.copyOf(categoryIds), false));
+        }
+        return new BulkProductUpdateResultDto(productIds.size());
+    }
+    
+    // Binds each array as a PostgreSQL array parameter after the timestamp
+    private void update(String sql, Set<Long> productIds, Set<Long> categoryIds, Timestamp now, SqlArray... arrays) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setTimestamp(1, now);
+            for (int i = 0; i < arrays.length; i++) {
+                ps.setArray(i + 2, connection.createArrayOf(arrays[i].type(), arrays[i].values()));
+            }
+            return ps;
+        }, rs -> {
+            productIds.add(rs.getLong("product_id"));
+            categoryIds.add(rs.getLong("category_id"));
+        });
     }
     
     /**
      * Get all products with pagination (admin view)
      * @param pageable - Pagination parameters (page, size, sort)
+     * @param exactCount - Run COUNT(*) for the total instead of using the cached estimate
      * @return Page of products
      */
-    public Page<ProductResponseDto> getAllProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findAll(pageable);
-        return products.map(productMapper::toDto);
+    public Page<ProductResponseDto> getAllProducts(Pageable pageable, boolean exactCount) {
+        if (exactCount) {
+            return productRepository.findDtoPage(pageable);
+        }
+        return productCountEstimator.toPage(productRepository.findDtoSlice(pageable), null);
+    }
+
+    // Array parameter with the SQL element type it must be bound as (matching the cast in the statement)
+    private record SqlArray(String type, Object[] values) {
     }
 }
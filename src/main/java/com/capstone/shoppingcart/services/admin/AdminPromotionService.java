@@ -4,8 +4,10 @@ import com.capstone.shoppingcart.dtos.CreatePromotionRequest;
 import com.capstone.shoppingcart.dtos.PromotionResponseDto;
 import com.capstone.shoppingcart.dtos.UpdatePromotionRequest;
 import com.capstone.shoppingcart.entities.Promotion;
+import com.capstone.shoppingcart.events.PromotionsChangedEvent;
 import com.capstone.shoppingcart.mappers.PromotionMapper;
 import com.capstone.shoppingcart.repositories.PromotionRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,10 +20,14 @@ public class AdminPromotionService {
 
     private final PromotionRepository promotionRepository;
     private final PromotionMapper promotionMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AdminPromotionService(PromotionRepository promotionRepository, PromotionMapper promotionMapper) {
+    public AdminPromotionService(PromotionRepository promotionRepository,
+                                 PromotionMapper promotionMapper,
+                                 ApplicationEventPublisher eventPublisher) {
         this.promotionRepository = promotionRepository;
         this.promotionMapper = promotionMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -44,6 +50,7 @@ public class AdminPromotionService {
                 .build();
 
         Promotion savedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionsChangedEvent(savedPromotion.getId()));
         return promotionMapper.toDto(savedPromotion);
     }
 
@@ -92,6 +99,7 @@ public class AdminPromotionService {
 
         promotion.setUpdatedAt(LocalDateTime.now());
         Promotion updatedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionsChangedEvent(id));
         return promotionMapper.toDto(updatedPromotion);
     }
 
@@ -102,6 +110,7 @@ public class AdminPromotionService {
         }
 
         promotionRepository.deleteById(id);
+        eventPublisher.publishEvent(new PromotionsChangedEvent(id));
     }
 
     public Page<PromotionResponseDto> getAllPromotions(Pageable pageable) {
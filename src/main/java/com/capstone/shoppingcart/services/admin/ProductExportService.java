@@ -0,0 +1,153 @@
+package com.capstone.shoppingcart.services.admin;
+
+import com.capstone.shoppingcart.enums.ProductFileFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Streams the whole catalog as CSV or NDJSON.
+ *
+ * Rows come from a forward-only JDBC cursor (PostgreSQL only uses a server-side cursor
+ * with a fetch size inside a transaction) and are written out as they arrive, so memory
+ * stays constant whatever the catalog size. The fields are those of the bulk import plus
+ * {@code id}, {@code createdAt} and {@code updatedAt}; the import ignores {@code id} and always
+ * creates new products, so an export is not a round-trippable edit format.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExportService.class);
+
+    private static final String EXPORT_QUERY =
+            "SELECT p.product_id, p.name, p.description, p.price, p.stock, p.image_url, " +
+            "p.category_id, c.name AS category_name, p.created_at, p.updated_at " +
+            "FROM products p JOIN categories c ON c.category_id = p.category_id " +
+            "ORDER BY p.product_id";
+
+    private static final String CSV_HEADER = "id,name,description,price,stock,imageUrl,categoryId,category,createdAt,updatedAt";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonMapper jsonMapper;
+
+    // Rows fetched per cursor round trip
+    @Value("${app.admin.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public ProductExportService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                JsonMapper jsonMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Write every product to the stream
+     * @param output - Response body; flushed after every fetched batch so the client receives data continuously
+     * @param format - CSV (with header row) or NDJSON
+     */
+    public void export(OutputStream output, ProductFileFormat format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == ProductFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long[] rows = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(EXPORT_QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                return ps;
+            }, rs -> {
+                try {
+                    ExportRow row = toRow(rs);
+                    if (format == ProductFileFormat.CSV) {
+                        writeCsv(writer, row);
+                    } else {
+                        writer.write(jsonMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                    if (++rows[0] % fetchSize == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException ex) {
+                    // Client went away: stop reading the cursor
+                    throw new UncheckedIOException(ex);
+                }
+            }));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        writer.flush();
+
+        log.info("Product export finished. format={}, rows={}", format, rows[0]);
+    }
+
+    private static ExportRow toRow(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new ExportRow(
+                rs.getLong("product_id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getDouble("price"),
+                rs.getInt("stock"),
+                rs.getString("image_url"),
+                rs.getLong("category_id"),
+                rs.getString("category_name"),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    }
+
+    private static void writeCsv(Writer writer, ExportRow row) throws IOException {
+        writer.write(String.join(",",
+                String.valueOf(row.id()),
+                csvField(row.name()),
+                csvField(row.description()),
+                String.valueOf(row.price()),
+                String.valueOf(row.stock()),
+                csvField(row.imageUrl()),
+                String.valueOf(row.categoryId()),
+                csvField(row.category()),
+                String.valueOf(row.createdAt()),
+                row.updatedAt() != null ? row.updatedAt().toString() : ""));
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record ExportRow(long id, String name, String description, double price, int stock, String imageUrl,
+                             long categoryId, String category, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+}
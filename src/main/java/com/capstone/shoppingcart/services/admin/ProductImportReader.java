@@ -0,0 +1,225 @@
+package com.capstone.shoppingcart.services.admin;
+
+import com.capstone.shoppingcart.enums.ProductFileFormat;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads an import file one row at a time, so memory does not grow with the file size.
+ * Rows come back as field name -> raw value maps; field names are normalized
+ * (lower case, without '_' and '-') so "image_url", "imageUrl" and "Image-URL" match.
+ */
+abstract class ProductImportReader {
+
+    protected final BufferedReader reader;
+
+    private ProductImportReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    static ProductImportReader open(ProductFileFormat format, Reader reader, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(reader);
+            case NDJSON -> new NdJson(reader, objectMapper);
+        };
+    }
+
+    /**
+     * @return The next row, or null at the end of the input
+     */
+    abstract Row next() throws IOException;
+
+    static String normalizeField(String name) {
+        return name.trim().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param line - 1-based line where the row starts
+     * @param fields - Normalized field name -> value (null when the row could not be parsed)
+     * @param error - Why the row could not be parsed
+     */
+    record Row(long line, Map<String, String> fields, String error) {
+
+        static Row invalid(long line, String error) {
+            return new Row(line, null, error);
+        }
+    }
+
+    /**
+     * RFC 4180 CSV: the first record is the header; quoted fields may contain commas,
+     * line breaks and doubled quotes.
+     */
+    private static final class Csv extends ProductImportReader {
+
+        private final List<String> header;
+        private long line = 1;
+        private long recordLine;
+        private int peeked = -2;
+
+        private Csv(Reader reader) throws IOException {
+            super(reader);
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IllegalArgumentException("Import file is empty");
+            }
+            // Excel writes a byte order mark in front of the first header
+            if (!names.isEmpty() && names.get(0).startsWith("\uFEFF")) {
+                names.set(0, names.get(0).substring(1));
+            }
+            this.header = names.stream().map(ProductImportReader::normalizeField).toList();
+        }
+
+        @Override
+        Row next() throws IOException {
+            List<String> values;
+            try {
+                values = readRecord();
+            } catch (IllegalArgumentException ex) {
+                return Row.invalid(recordLine, ex.getMessage());
+            }
+            if (values == null) {
+                return null;
+            }
+            if (values.size() != header.size()) {
+                return Row.invalid(recordLine, "Expected " + header.size() + " columns, found " + values.size());
+            }
+
+            Map<String, String> fields = new HashMap<>(header.size() * 2);
+            for (int i = 0; i < header.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return new Row(recordLine, fields, null);
+        }
+
+        // One record, skipping blank lines; null at the end of the input
+        private List<String> readRecord() throws IOException {
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean empty = true;
+            recordLine = line;
+
+            while (true) {
+                int c = read();
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                    continue;
+                }
+
+                if (c == -1 || c == '\n') {
+                    if (empty && field.isEmpty() && values.isEmpty()) {
+                        if (c == -1) {
+                            return null;
+                        }
+                        recordLine = line;
+                        continue;
+                    }
+                    values.add(field.toString());
+                    return values;
+                }
+                if (c == '\r') {
+                    continue;
+                }
+                empty = false;
+                if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (peeked != -2) {
+                c = peeked;
+                peeked = -2;
+            } else {
+                c = reader.read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+    }
+
+    /**
+     * Newline-delimited JSON: one object per line, blank lines are skipped.
+     * Each line is parsed on its own, so a malformed line only fails that row.
+     */
+    private static final class NdJson extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        private NdJson(Reader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JacksonException ex) {
+                return Row.invalid(line, "Invalid JSON: " + ex.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return Row.invalid(line, "Expected a JSON object");
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, JsonNode> property : node.properties()) {
+                JsonNode value = property.getValue();
+                if (!value.isValueNode()) {
+                    return Row.invalid(line, "Field '" + property.getKey() + "' must be a string or number");
+                }
+                fields.put(normalizeField(property.getKey()), value.isNull() ? null : value.asString());
+            }
+            return new Row(line, fields, null);
+        }
+    }
+}
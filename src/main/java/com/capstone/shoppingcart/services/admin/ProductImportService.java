@@ -0,0 +1,261 @@
+package com.capstone.shoppingcart.services.admin;
+
+import com.capstone.shoppingcart.dtos.CreateProductRequest;
+import com.capstone.shoppingcart.dtos.ImportRowErrorDto;
+import com.capstone.shoppingcart.dtos.ProductImportResultDto;
+import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.enums.ProductFileFormat;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.services.CategorySnapshot;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from a CSV or NDJSON stream (e.g. a supplier feed).
+ *
+ * The body is parsed row by row while it is being uploaded. Valid rows are inserted with
+ * JDBC batches, one transaction per chunk, so neither memory nor transaction size grows
+ * with the file. Categories are resolved by name from the in-memory category snapshot.
+ * Invalid rows are skipped and reported with their line number once the stream ends.
+ * Chunks already committed stay imported if the upload is cut off.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (product_id, name, description, price, stock, image_url, category_id, created_at, popularity) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // Each value ends a block of Product.ID_ALLOCATION_SIZE ids, as for Hibernate's pooled optimizer
+    private static final String RESERVE_ID_BLOCKS =
+            "SELECT nextval('" + Product.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategorySnapshot categorySnapshot;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Rows per JDBC batch and transaction
+    @Value("${app.admin.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // Row errors listed in the result; further failures are only counted
+    @Value("${app.admin.import.max-errors:1000}")
+    private int maxErrors;
+
+    /**
+     * Import products from a stream
+     * @param input - CSV (with header row) or NDJSON request body, UTF-8
+     * @param format - Format of the body
+     * @return Imported/failed counts and the errors of the rejected rows
+     */
+    public ProductImportResultDto importProducts(InputStream input, ProductFileFormat format) throws IOException {
+        ProductImportReader reader = ProductImportReader.open(format,
+                new InputStreamReader(input, StandardCharsets.UTF_8), jsonMapper);
+        ImportRun run = new ImportRun(Timestamp.valueOf(LocalDateTime.now()));
+
+        try {
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                if (row.error() != null) {
+                    run.fail(row.line(), row.error());
+                    continue;
+                }
+                try {
+                    run.chunk.add(new ValidRow(row.line(), toRequest(row.fields())));
+                } catch (IllegalArgumentException ex) {
+                    run.fail(row.line(), ex.getMessage());
+                    continue;
+                }
+                if (run.chunk.size() >= chunkSize) {
+                    flush(run);
+                }
+            }
+            flush(run);
+        } finally {
+            // Also when the upload is cut off: the chunks committed so far stay imported
+            if (run.imported > 0) {
+                eventPublisher.publishEvent(ProductCatalogChangedEvent.bulk(run.categoryIds));
+            }
+        }
+        log.info("Product import finished. format={}, imported={}, failed={}", format, run.imported, run.failed);
+
+        return ProductImportResultDto.builder()
+                .imported(run.imported)
+                .failed(run.failed)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .build();
+    }
+
+    private CreateProductRequest toRequest(Map<String, String> fields) {
+        CreateProductRequest request = new CreateProductRequest();
+        request.setName(text(fields, "name"));
+        request.setDescription(text(fields, "description"));
+        request.setImageUrl(text(fields, "imageurl"));
+
+        String price = text(fields, "price");
+        String stock = text(fields, "stock");
+        try {
+            request.setPrice(price != null ? Double.valueOf(price) : null);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        try {
+            request.setStock(stock != null ? Integer.valueOf(stock) : null);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid stock: " + stock);
+        }
+        request.setCategoryId(resolveCategory(fields));
+
+        // Same rules as the single-product endpoint
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return request;
+    }
+
+    // "categoryId" wins over "category" (name) when both columns are present
+    private Long resolveCategory(Map<String, String> fields) {
+        String categoryId = text(fields, "categoryid");
+        if (categoryId != null) {
+            Long id;
+            try {
+                id = Long.valueOf(categoryId);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid category ID: " + categoryId);
+            }
+            if (!categorySnapshot.exists(id)) {
+                throw new IllegalArgumentException("Category not found with ID: " + id);
+            }
+            return id;
+        }
+
+        String category = text(fields, "category");
+        if (category == null) {
+            return null;
+        }
+        return categorySnapshot.findIdByName(category)
+                .orElseThrow(() -> new IllegalArgumentException("Category not found: " + category));
+    }
+
+    private static String text(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private void flush(ImportRun run) {
+        if (run.chunk.isEmpty()) {
+            return;
+        }
+        List<NewProduct> chunk = assignIds(run.chunk);
+        run.chunk.clear();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk, run.createdAt));
+            chunk.forEach(product -> run.imported(product.row()));
+        } catch (DataAccessException ex) {
+            // The batch was rolled back; retry row by row (same ids) to find the rows the database rejects
+            for (NewProduct product : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(product), run.createdAt));
+                    run.imported(product.row());
+                } catch (DataAccessException rowEx) {
+                    run.fail(product.row().line(), rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    // One query reserves ids for the whole chunk
+    private List<NewProduct> assignIds(List<ValidRow> rows) {
+        int blocks = (rows.size() + Product.ID_ALLOCATION_SIZE - 1) / Product.ID_ALLOCATION_SIZE;
+        List<Long> blockEnds = jdbcTemplate.queryForList(RESERVE_ID_BLOCKS, Long.class, blocks);
+
+        List<NewProduct> products = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            long blockEnd = blockEnds.get(i / Product.ID_ALLOCATION_SIZE);
+            long id = blockEnd - Product.ID_ALLOCATION_SIZE + 1 + i % Product.ID_ALLOCATION_SIZE;
+            products.add(new NewProduct(id, rows.get(i)));
+        }
+        return products;
+    }
+
+    private void insert(List<NewProduct> products, Timestamp createdAt) {
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, products, products.size(), (ps, newProduct) -> {
+            CreateProductRequest product = newProduct.row().product();
+            ps.setLong(1, newProduct.id());
+            ps.setString(2, product.getName());
+            ps.setString(3, product.getDescription());
+            ps.setDouble(4, product.getPrice());
+            ps.setInt(5, product.getStock());
+            ps.setString(6, product.getImageUrl());
+            ps.setLong(7, product.getCategoryId());
+            ps.setTimestamp(8, createdAt);
+        });
+    }
+
+    private record ValidRow(long line, CreateProductRequest product) {
+    }
+
+    private record NewProduct(long id, ValidRow row) {
+    }
+
+    private final class ImportRun {
+
+        private final Timestamp createdAt;
+        private final List<ValidRow> chunk = new ArrayList<>();
+        private final List<ImportRowErrorDto> errors = new ArrayList<>();
+        private final Set<Long> categoryIds = new HashSet<>();
+        private long imported;
+        private long failed;
+
+        private ImportRun(Timestamp createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private void imported(ValidRow row) {
+            imported++;
+            categoryIds.add(row.product().getCategoryId());
+        }
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowErrorDto(line, message));
+            }
+        }
+    }
+}
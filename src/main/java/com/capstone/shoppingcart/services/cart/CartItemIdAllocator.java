@@ -0,0 +1,35 @@
+package com.capstone.shoppingcart.services.cart;
+
+import com.capstone.shoppingcart.entities.CartItem;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cart item ids for rows written with plain SQL (upserts, the write-behind flush).
+ * Draws blocks from the same pooled sequence as Hibernate, so ids never collide with
+ * items Hibernate inserts: one sequence round trip per CartItem.ID_ALLOCATION_SIZE ids.
+ */
+@Component
+public class CartItemIdAllocator {
+
+    // Ends a block of CartItem.ID_ALLOCATION_SIZE ids, as for Hibernate's pooled optimizer
+    private static final String RESERVE_BLOCK =
+            "SELECT nextval('" + CartItem.ID_SEQUENCE + "')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private long nextId;
+    private long blockEnd;
+
+    public CartItemIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public synchronized long nextId() {
+        if (nextId == 0 || nextId > blockEnd) {
+            blockEnd = jdbcTemplate.queryForObject(RESERVE_BLOCK, Long.class);
+            nextId = blockEnd - CartItem.ID_ALLOCATION_SIZE + 1;
+        }
+        return nextId++;
+    }
+}
@@ -0,0 +1,627 @@
+package com.capstone.shoppingcart.services.cart;
+
+import com.capstone.shoppingcart.dtos.CartItemDto;
+import com.capstone.shoppingcart.dtos.CartItemOperation;
+import com.capstone.shoppingcart.dtos.CartResponseDto;
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
+import com.capstone.shoppingcart.dtos.ProductDto;
+import com.capstone.shoppingcart.entities.Cart;
+import com.capstone.shoppingcart.entities.CartItem;
+import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.entities.User;
+import com.capstone.shoppingcart.enums.CartOperationType;
+import com.capstone.shoppingcart.repositories.CartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Write-behind cart storage (app.cart.storage=write_behind).
+ *
+ * Carts are held in memory, sharded by user id. Reads and mutations are served from there and
+ * only mark the cart dirty; nothing is written while the request runs. A scheduled flush writes
+ * the dirty carts of each shard in one transaction (JDBC batches upserting carts and changed
+ * items, deleting removed items), and the store is flushed once more on shutdown. Quantities and
+ * the summary columns are written as the change since the last flush and added to the stored
+ * values, never as absolute values that would overwrite another writer's increment. A cart that
+ * is not in memory is loaded on first use; clean carts idle for longer than idle-ttl are evicted.
+ *
+ * Changes not flushed yet are lost if the process dies, so the flush interval is the durability
+ * window. The store must be the only writer of carts: run a single instance, or route each user
+ * to the same instance. Product name and price shown in a cached cart are those at load time.
+ */
+@Component
+public class WriteBehindCartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    // Summary values are the change since the last flush (the whole summary for a new cart)
+    private static final String UPSERT_CART =
+            "INSERT INTO carts (cart_id, user_id, created_at, updated_at, line_count, total_quantity, subtotal_cents) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (cart_id) DO UPDATE SET " +
+            "updated_at = EXCLUDED.updated_at, line_count = carts.line_count + EXCLUDED.line_count, " +
+            "total_quantity = carts.total_quantity + EXCLUDED.total_quantity, " +
+            "subtotal_cents = carts.subtotal_cents + EXCLUDED.subtotal_cents";
+
+    private static final String DELETE_ITEM =
+            "DELETE FROM cart_items WHERE cart_item_id = ?";
+
+    // Quantity is the change since the last flush (the whole quantity for a new line)
+    private static final String UPSERT_ITEM =
+            "INSERT INTO cart_items (cart_item_id, cart_id, product_id, quantity, price) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (cart_item_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity";
+
+    private final CartRepository cartRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartItemIdAllocator itemIdAllocator;
+    private final List<Map<UUID, CachedCart>> shards;
+
+    private final Timer flushTimer;
+    private final Counter flushedCarts;
+    private final Counter flushFailures;
+    private final Counter droppedCarts;
+
+    @Value("${app.cart.write-behind.idle-ttl:30m}")
+    private Duration idleTtl;
+
+    public WriteBehindCartStore(CartRepository cartRepository,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                CartItemIdAllocator itemIdAllocator,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cart.write-behind.shards:16}") int shardCount,
+                                @Value("${app.cart.write-behind.flush-interval:5000}") long flushInterval) {
+        this.cartRepository = cartRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.itemIdAllocator = itemIdAllocator;
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < Math.max(shardCount, 1); i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+
+        Gauge.builder("cart.store.carts", this, store -> store.count(false))
+                .description("Carts held in the write-behind store")
+                .register(meterRegistry);
+        Gauge.builder("cart.store.dirty", this, store -> store.count(true))
+                .description("Carts with changes not written to the database yet")
+                .register(meterRegistry);
+        TimeGauge.builder("cart.store.flush.lag", this, TimeUnit.MILLISECONDS, WriteBehindCartStore::flushLagMillis)
+                .description("Age of the oldest change not written to the database yet")
+                .register(meterRegistry);
+        TimeGauge.builder("cart.store.flush.interval", () -> flushInterval, TimeUnit.MILLISECONDS)
+                .description("Configured flush interval (the durability window)")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("cart.store.flush")
+                .description("Time to write the dirty carts to the database")
+                .register(meterRegistry);
+        this.flushedCarts = Counter.builder("cart.store.flushed")
+                .description("Carts written to the database")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("cart.store.flush.failures")
+                .description("Flush attempts that failed and were kept for the next flush")
+                .register(meterRegistry);
+        this.droppedCarts = Counter.builder("cart.store.dropped")
+                .description("Carts whose changes the database rejected; reloaded on next use")
+                .register(meterRegistry);
+    }
+
+    public CartResponseDto getCart(User user) {
+        return withCart(user, CachedCart::toDto);
+    }
+
+    /**
+     * Add a product to the cart, or raise the quantity of its existing line
+     */
+    public CartResponseDto addItem(User user, Product product, int quantity) {
+        return withCart(user, cart -> {
+            addLine(cart, product, quantity);
+            return cart.toDto();
+        });
+    }
+
+    /**
+     * Set the quantity of a line of the user's cart
+     * @throws IllegalArgumentException if the item is not in the user's cart
+     */
+    public CartResponseDto updateQuantity(User user, Long itemId, int quantity) {
+        return withCart(user, cart -> {
+            cart.setQuantity(cart.findItem(itemId), quantity);
+            return cart.toDto();
+        });
+    }
+
+    /**
+     * Remove a line from the user's cart
+     * @throws IllegalArgumentException if the item is not in the user's cart
+     */
+    public CartResponseDto removeItem(User user, Long itemId) {
+        return withCart(user, cart -> {
+            cart.remove(cart.findItem(itemId));
+            return cart.toDto();
+        });
+    }
+
+    /**
+     * Apply a batch of operations; nothing is applied if one of them would fail
+     * @param products - Products of the ADD operations by id
+     * @throws IllegalArgumentException if an operation refers to a line not in the user's cart
+     */
+    public CartResponseDto applyOperations(User user, List<CartItemOperation> operations, Map<Long, Product> products) {
+        return withCart(user, cart -> {
+            cart.checkOperations(operations);
+            for (CartItemOperation operation : operations) {
+                switch (operation.getType()) {
+                    case ADD -> addLine(cart, products.get(operation.getProductId()), operation.getQuantity());
+                    case SET_QUANTITY -> cart.setQuantity(cart.findLine(operation), operation.getQuantity());
+                    case REMOVE -> cart.remove(cart.findLine(operation));
+                }
+            }
+            return cart.toDto();
+        });
+    }
+
+    /**
+     * Summary of the user's cart if it is in memory; otherwise the database is up to date
+     */
+    public Optional<CartSummaryDto> findSummary(UUID userId) {
+        CachedCart cart = shard(userId).get(userId);
+        if (cart == null) {
+            return Optional.empty();
+        }
+        synchronized (cart) {
+            return cart.evicted ? Optional.empty() : Optional.of(cart.summary());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval:5000}",
+               initialDelayString = "${app.cart.write-behind.flush-interval:5000}")
+    public void flushAndEvict() {
+        flush();
+        evictIdle();
+    }
+
+    /**
+     * Write every dirty cart, one transaction per shard
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        long start = System.nanoTime();
+        int written = 0;
+        for (Map<UUID, CachedCart> shard : shards) {
+            List<PendingCart> pending = new ArrayList<>();
+            for (CachedCart cart : shard.values()) {
+                PendingCart changes = cart.pendingChanges();
+                if (changes != null) {
+                    pending.add(changes);
+                }
+            }
+            if (!pending.isEmpty()) {
+                written += write(shard, pending);
+            }
+        }
+        if (written > 0) {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.debug("Cart store flushed. carts={}", written);
+        }
+    }
+
+    private int write(Map<UUID, CachedCart> shard, List<PendingCart> pending) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeRows(pending));
+            pending.forEach(PendingCart::written);
+            flushedCarts.increment(pending.size());
+            return pending.size();
+        } catch (DataIntegrityViolationException ex) {
+            // Rolled back as a whole; write cart by cart so only the rejected ones are given up
+            int written = 0;
+            for (PendingCart changes : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writeRows(List.of(changes)));
+                    changes.written();
+                    flushedCarts.increment();
+                    written++;
+                } catch (DataIntegrityViolationException cartEx) {
+                    // E.g. a product deleted after it was added: retrying can never succeed
+                    drop(shard, changes.cart(), cartEx);
+                } catch (DataAccessException cartEx) {
+                    flushFailures.increment();
+                    log.warn("Cart flush failed, kept for the next flush. cartId={}: {}",
+                            changes.cart().id, cartEx.getMostSpecificCause().getMessage());
+                }
+            }
+            return written;
+        } catch (DataAccessException ex) {
+            // Most likely the database is unreachable; everything stays dirty until the next flush
+            flushFailures.increment();
+            log.warn("Cart flush failed, {} carts kept for the next flush: {}", pending.size(),
+                    ex.getMostSpecificCause().getMessage());
+            return 0;
+        }
+    }
+
+    private void writeRows(List<PendingCart> pending) {
+        List<Object[]> carts = new ArrayList<>(pending.size());
+        List<Object[]> deletedItems = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        for (PendingCart changes : pending) {
+            carts.add(changes.cartRow());
+            deletedItems.addAll(changes.deletedItemRows());
+            items.addAll(changes.itemRows());
+        }
+        jdbcTemplate.batchUpdate(UPSERT_CART, carts);
+        jdbcTemplate.batchUpdate(DELETE_ITEM, deletedItems);
+        jdbcTemplate.batchUpdate(UPSERT_ITEM, items);
+    }
+
+    private void drop(Map<UUID, CachedCart> shard, CachedCart cart, DataAccessException cause) {
+        synchronized (cart) {
+            cart.evicted = true;
+        }
+        shard.remove(cart.userId, cart);
+        droppedCarts.increment();
+        log.warn("Cart rejected by the database, unsaved changes dropped. cartId={}: {}",
+                cart.id, cause.getMostSpecificCause().getMessage());
+    }
+
+    private void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleTtl.toMillis();
+        for (Map<UUID, CachedCart> shard : shards) {
+            for (CachedCart cart : shard.values()) {
+                synchronized (cart) {
+                    if (cart.dirtySince == 0 && cart.lastAccess < idleSince) {
+                        cart.evicted = true;
+                        shard.remove(cart.userId, cart);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Run an action on the user's cart under its lock, loading the cart first on a miss
+     */
+    private <T> T withCart(User user, Function<CachedCart, T> action) {
+        Map<UUID, CachedCart> shard = shard(user.getId());
+        while (true) {
+            CachedCart cart = shard.get(user.getId());
+            if (cart == null) {
+                CachedCart loaded = load(user);
+                cart = shard.putIfAbsent(user.getId(), loaded);
+                if (cart == null) {
+                    cart = loaded;
+                }
+            }
+            synchronized (cart) {
+                // Evicted between the lookup and the lock: look it up again
+                if (!cart.evicted) {
+                    cart.lastAccess = System.currentTimeMillis();
+                    return action.apply(cart);
+                }
+            }
+        }
+    }
+
+    // An existing line of the product gets the extra units instead of a second line
+    private void addLine(CachedCart cart, Product product, int quantity) {
+        CachedItem item = cart.findByProduct(product.getId());
+        if (item == null) {
+            item = new CachedItem(itemIdAllocator.nextId(), toProductDto(product), product.getPrice());
+            cart.items.put(item.id, item);
+            cart.lineCount++;
+        }
+        item.quantity += quantity;
+        cart.changed(item, quantity);
+    }
+
+    private CachedCart load(User user) {
+        Optional<Cart> stored = cartRepository.findWithItemsByUserId(user.getId());
+        if (stored.isEmpty()) {
+            // New cart: inserted by the next flush
+            CachedCart cart = new CachedCart(user.getId(), UUID.randomUUID(), LocalDateTime.now());
+            cart.markDirty();
+            return cart;
+        }
+
+        Cart entity = stored.get();
+        CachedCart cart = new CachedCart(user.getId(), entity.getId(), entity.getCreatedAt());
+        cart.updatedAt = entity.getUpdatedAt();
+        entity.getCartItems().stream()
+                .sorted(Comparator.comparing(CartItem::getId))
+                .forEach(cartItem -> {
+                    CachedItem item = new CachedItem(cartItem.getId(), toProductDto(cartItem.getProduct()), cartItem.getPrice());
+                    item.quantity = cartItem.getQuantity();
+                    cart.items.put(item.id, item);
+                });
+        cart.recomputeSummary();
+        cart.flushed();
+        return cart;
+    }
+
+    private Map<UUID, CachedCart> shard(UUID userId) {
+        return shards.get(Math.floorMod(userId.hashCode(), shards.size()));
+    }
+
+    private double count(boolean dirtyOnly) {
+        long count = 0;
+        for (Map<UUID, CachedCart> shard : shards) {
+            count += dirtyOnly
+                    ? shard.values().stream().filter(cart -> cart.dirtySince != 0).count()
+                    : shard.size();
+        }
+        return count;
+    }
+
+    private double flushLagMillis() {
+        long oldest = 0;
+        for (Map<UUID, CachedCart> shard : shards) {
+            for (CachedCart cart : shard.values()) {
+                long dirtySince = cart.dirtySince;
+                if (dirtySince != 0 && (oldest == 0 || dirtySince < oldest)) {
+                    oldest = dirtySince;
+                }
+            }
+        }
+        return oldest == 0 ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    private static ProductDto toProductDto(Product product) {
+        return new ProductDto(product.getId(), product.getName(), product.getPrice());
+    }
+
+    /**
+     * A user's cart; all access goes through synchronized (cart). dirtySince and lastAccess are
+     * also read without the lock by the metrics and the eviction scan.
+     */
+    private static final class CachedCart {
+
+        private final UUID userId;
+        private final UUID id;
+        private final LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        // By item id, in the order the lines were added
+        private final Map<Long, CachedItem> items = new LinkedHashMap<>();
+        private int lineCount;
+        private int totalQuantity;
+        private long subtotalCents;
+
+        // Summary and item quantities as stored by the last successful flush (or load)
+        private int flushedLineCount;
+        private int flushedTotalQuantity;
+        private long flushedSubtotalCents;
+        private final Map<Long, Integer> flushedQuantities = new HashMap<>();
+
+        // Changes since the last successful flush
+        private final Set<Long> changedItemIds = new HashSet<>();
+        private final Set<Long> removedItemIds = new HashSet<>();
+        private long version;
+        private volatile long dirtySince;
+
+        private volatile long lastAccess = System.currentTimeMillis();
+        private boolean evicted;
+
+        private CachedCart(UUID userId, UUID id, LocalDateTime createdAt) {
+            this.userId = userId;
+            this.id = id;
+            this.createdAt = createdAt;
+        }
+
+        private CachedItem findByProduct(Long productId) {
+            for (CachedItem item : items.values()) {
+                if (item.product.getId().equals(productId)) {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        // Looking the item up in the user's own cart doubles as the ownership check
+        private CachedItem findItem(Long itemId) {
+            CachedItem item = items.get(itemId);
+            if (item == null) {
+                throw new IllegalArgumentException("Cart item not found");
+            }
+            return item;
+        }
+
+        private CachedItem findLine(CartItemOperation operation) {
+            if (operation.getItemId() != null) {
+                return findItem(operation.getItemId());
+            }
+            CachedItem item = findByProduct(operation.getProductId());
+            if (item == null) {
+                throw new IllegalArgumentException("Cart item not found");
+            }
+            return item;
+        }
+
+        /**
+         * Replay the operations on the line ids alone, so a batch that would fail halfway
+         * is rejected before anything changes
+         */
+        private void checkOperations(List<CartItemOperation> operations) {
+            // Line id -> product id; lines added by the batch get negative placeholder ids
+            Map<Long, Long> lines = new HashMap<>();
+            items.values().forEach(item -> lines.put(item.id, item.product.getId()));
+            long placeholder = -1;
+
+            for (CartItemOperation operation : operations) {
+                if (operation.getType() == CartOperationType.ADD) {
+                    if (!lines.containsValue(operation.getProductId())) {
+                        lines.put(placeholder--, operation.getProductId());
+                    }
+                    continue;
+                }
+                Long lineId = operation.getItemId() != null
+                        ? (lines.containsKey(operation.getItemId()) ? operation.getItemId() : null)
+                        : lines.entrySet().stream()
+                                .filter(line -> line.getValue().equals(operation.getProductId()))
+                                .map(Map.Entry::getKey)
+                                .findFirst()
+                                .orElse(null);
+                if (lineId == null) {
+                    throw new IllegalArgumentException("Cart item not found");
+                }
+                if (operation.getType() == CartOperationType.REMOVE) {
+                    lines.remove(lineId);
+                }
+            }
+        }
+
+        private void setQuantity(CachedItem item, int quantity) {
+            int delta = quantity - item.quantity;
+            item.quantity = quantity;
+            changed(item, delta);
+        }
+
+        private void remove(CachedItem item) {
+            items.remove(item.id);
+            lineCount--;
+            changed(item, -item.quantity);
+            changedItemIds.remove(item.id);
+            removedItemIds.add(item.id);
+        }
+
+        private void changed(CachedItem item, int quantityDelta) {
+            totalQuantity += quantityDelta;
+            subtotalCents += Cart.toCents(item.price) * quantityDelta;
+            changedItemIds.add(item.id);
+            updatedAt = LocalDateTime.now();
+            markDirty();
+        }
+
+        private void markDirty() {
+            version++;
+            if (dirtySince == 0) {
+                dirtySince = System.currentTimeMillis();
+            }
+        }
+
+        private void recomputeSummary() {
+            lineCount = items.size();
+            totalQuantity = items.values().stream().mapToInt(item -> item.quantity).sum();
+            subtotalCents = items.values().stream().mapToLong(item -> Cart.toCents(item.price) * item.quantity).sum();
+        }
+
+        private CartSummaryDto summary() {
+            return new CartSummaryDto(lineCount, totalQuantity, subtotalCents);
+        }
+
+        private CartResponseDto toDto() {
+            return CartResponseDto.builder()
+                    .id(id)
+                    .userId(userId)
+                    .createdAt(createdAt)
+                    .updatedAt(updatedAt)
+                    .cartItems(items.values().stream()
+                            .map(item -> new CartItemDto(item.id, item.quantity, item.price, item.product))
+                            .toList())
+                    .summary(summary())
+                    .build();
+        }
+
+        /**
+         * Rows to write for this cart, or null when it is clean
+         */
+        private synchronized PendingCart pendingChanges() {
+            if (dirtySince == 0) {
+                return null;
+            }
+            Object[] cartRow = {id, userId, Timestamp.valueOf(createdAt),
+                    updatedAt != null ? Timestamp.valueOf(updatedAt) : null,
+                    lineCount - flushedLineCount, totalQuantity - flushedTotalQuantity,
+                    subtotalCents - flushedSubtotalCents};
+            List<Object[]> itemRows = new ArrayList<>(changedItemIds.size());
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (Long itemId : changedItemIds) {
+                CachedItem item = items.get(itemId);
+                int delta = item.quantity - flushedQuantities.getOrDefault(itemId, 0);
+                if (delta != 0) {
+                    itemRows.add(new Object[]{item.id, id, item.product.getId(), delta, item.price});
+                    quantities.put(itemId, item.quantity);
+                }
+            }
+            List<Object[]> deletedItemRows = removedItemIds.stream()
+                    .map(itemId -> new Object[]{itemId})
+                    .toList();
+            return new PendingCart(this, version, cartRow, itemRows, deletedItemRows,
+                    summary(), quantities);
+        }
+
+        // The written values are the base of the next flush's changes
+        private void flushed() {
+            flushedLineCount = lineCount;
+            flushedTotalQuantity = totalQuantity;
+            flushedSubtotalCents = subtotalCents;
+            items.values().forEach(item -> flushedQuantities.put(item.id, item.quantity));
+        }
+
+        // Changes made while the flush was running keep the cart dirty; the next flush writes only those
+        private synchronized void written(PendingCart changes) {
+            flushedLineCount = changes.summary().getLineCount();
+            flushedTotalQuantity = changes.summary().getTotalQuantity();
+            flushedSubtotalCents = changes.summary().getSubtotalCents();
+            flushedQuantities.putAll(changes.quantities());
+            changes.deletedItemRows().forEach(row -> flushedQuantities.remove((Long) row[0]));
+            if (version == changes.version()) {
+                changedItemIds.clear();
+                removedItemIds.clear();
+                dirtySince = 0;
+            }
+        }
+    }
+
+    private static final class CachedItem {
+
+        private final long id;
+        private final ProductDto product;
+        // Unit price when the product was added
+        private final double price;
+        private int quantity;
+
+        private CachedItem(long id, ProductDto product, double price) {
+            this.id = id;
+            this.product = product;
+            this.price = price;
+        }
+    }
+
+    private record PendingCart(CachedCart cart, long version, Object[] cartRow,
+                               List<Object[]> itemRows, List<Object[]> deletedItemRows,
+                               CartSummaryDto summary, Map<Long, Integer> quantities) {
+
+        void written() {
+            cart.written(this);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.capstone.shoppingcart.services.recommendation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * "Frequently bought together": products that share carts.
+ *
+ * A scheduled job walks carts changed since the last run in fixed-size chunks (keyset on
+ * updated_at, cart_id). For each chunk it diffs every cart's products against the set it
+ * counted last time (cooccurrence_cart_state), accumulates the pair deltas in a primitive
+ * sparse matrix and applies them to product_cooccurrence in one transaction, so memory is
+ * bounded by the chunk size and re-processing a cart is idempotent.
+ * The top neighbours per product are then reloaded into memory.
+ */
+@Service
+public class CartCooccurrenceRecommender {
+
+    private static final Logger log = LoggerFactory.getLogger(CartCooccurrenceRecommender.class);
+
+    private static final String CHANGED_CARTS_SINCE =
+            "SELECT cart_id, updated_at FROM carts WHERE updated_at >= :since " +
+            "ORDER BY updated_at, cart_id LIMIT :limit";
+
+    private static final String CHANGED_CARTS_AFTER =
+            "SELECT cart_id, updated_at FROM carts WHERE (updated_at, cart_id) > (:after, :afterId) " +
+            "ORDER BY updated_at, cart_id LIMIT :limit";
+
+    private static final String CART_PRODUCTS =
+            "SELECT cart_id, product_id FROM cart_items WHERE cart_id IN (:cartIds)";
+
+    private static final String COUNTED_PRODUCTS =
+            "SELECT cart_id, product_ids FROM cooccurrence_cart_state WHERE cart_id IN (:cartIds)";
+
+    private static final String UPSERT_PAIR =
+            "INSERT INTO product_cooccurrence (product_id, related_product_id, carts) VALUES (?, ?, ?) " +
+            "ON CONFLICT (product_id, related_product_id) DO UPDATE SET carts = product_cooccurrence.carts + EXCLUDED.carts";
+
+    private static final String UPSERT_CART_STATE =
+            "INSERT INTO cooccurrence_cart_state (cart_id, updated_at, product_ids) VALUES (?, ?, ?) " +
+            "ON CONFLICT (cart_id) DO UPDATE SET updated_at = EXCLUDED.updated_at, product_ids = EXCLUDED.product_ids";
+
+    private static final String DELETE_EMPTY_PAIRS =
+            "DELETE FROM product_cooccurrence WHERE carts <= 0";
+
+    // Top-k neighbours per product that still exists, strongest first
+    private static final String TOP_NEIGHBOURS =
+            "SELECT product_id, related_product_id FROM (" +
+            "SELECT c.product_id, c.related_product_id, row_number() OVER (" +
+            "PARTITION BY c.product_id ORDER BY c.carts DESC, c.related_product_id) AS rank " +
+            "FROM product_cooccurrence c JOIN products p ON p.product_id = c.related_product_id " +
+            "WHERE c.carts >= ?) ranked " +
+            "WHERE rank <= ? ORDER BY product_id, rank";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Map<Long, long[]> neighbours = Map.of();
+
+    @Value("${app.recommendations.related.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.recommendations.related.top-k:10}")
+    private int topK;
+
+    // Pairs seen in fewer carts than this are noise
+    @Value("${app.recommendations.related.min-support:2}")
+    private int minSupport;
+
+    // updated_at is stamped before the change commits (up to a flush interval before, in write-behind
+    // cart storage), so each run re-reads carts this far behind the newest one already counted
+    @Value("${app.recommendations.related.watermark-lag:5m}")
+    private Duration watermarkLag;
+
+    public CartCooccurrenceRecommender(JdbcTemplate jdbcTemplate,
+                                       NamedParameterJdbcTemplate namedJdbcTemplate,
+                                       TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Products most often in the same cart as the given one, strongest first
+     */
+    public long[] relatedProductIds(Long productId) {
+        return neighbours.getOrDefault(productId, new long[0]);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            loadNeighbours();
+        } catch (DataAccessException ex) {
+            log.warn("Related products not loaded: {}", ex.getMostSpecificCause().getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommendations.related.refresh-interval:600000}",
+               initialDelayString = "${app.recommendations.related.refresh-interval:600000}")
+    public synchronized void refresh() {
+        try {
+            int carts = processChangedCarts();
+            if (carts > 0) {
+                jdbcTemplate.update(DELETE_EMPTY_PAIRS);
+                loadNeighbours();
+            }
+            log.info("Related products refreshed. cartsProcessed={}, products={}", carts, neighbours.size());
+        } catch (DataAccessException ex) {
+            log.warn("Related products refresh failed: {}", ex.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private int processChangedCarts() {
+        // Resume a lag behind the newest cart already counted; re-counting an unchanged cart is a no-op
+        Timestamp newest = jdbcTemplate.queryForObject(
+                "SELECT max(updated_at) FROM cooccurrence_cart_state", Timestamp.class);
+        Timestamp since = newest != null
+                ? new Timestamp(newest.getTime() - watermarkLag.toMillis())
+                : new Timestamp(0);
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", chunkSize)
+                .addValue("since", since);
+
+        int processed = 0;
+        String query = CHANGED_CARTS_SINCE;
+        while (true) {
+            List<ChangedCart> chunk = namedJdbcTemplate.query(query, params,
+                    (rs, rowNum) -> new ChangedCart(rs.getObject("cart_id", UUID.class), rs.getTimestamp("updated_at")));
+            if (chunk.isEmpty()) {
+                return processed;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> applyChunk(chunk));
+            processed += chunk.size();
+
+            ChangedCart last = chunk.get(chunk.size() - 1);
+            query = CHANGED_CARTS_AFTER;
+            params.addValue("after", last.updatedAt()).addValue("afterId", last.cartId());
+        }
+    }
+
+    private void applyChunk(List<ChangedCart> chunk) {
+        MapSqlParameterSource cartIds = new MapSqlParameterSource("cartIds",
+                chunk.stream().map(ChangedCart::cartId).toList());
+
+        Map<UUID, TreeSet<Long>> current = new HashMap<>();
+        namedJdbcTemplate.query(CART_PRODUCTS, cartIds, rs -> {
+            current.computeIfAbsent(rs.getObject("cart_id", UUID.class), id -> new TreeSet<>())
+                    .add(rs.getLong("product_id"));
+        });
+        Map<UUID, Long[]> counted = new HashMap<>();
+        namedJdbcTemplate.query(COUNTED_PRODUCTS, cartIds, rs -> {
+            counted.put(rs.getObject("cart_id", UUID.class), (Long[]) rs.getArray("product_ids").getArray());
+        });
+
+        // Add the pairs each cart has now, remove the pairs it had when last counted
+        PairCounts deltas = new PairCounts(chunkSize * 8);
+        for (ChangedCart cart : chunk) {
+            Long[] products = current.getOrDefault(cart.cartId(), new TreeSet<>()).toArray(Long[]::new);
+            Long[] previous = counted.getOrDefault(cart.cartId(), new Long[0]);
+            // Both sorted; equal for carts re-read within the watermark lag
+            if (!Arrays.equals(products, previous)) {
+                addPairs(deltas, products, 1);
+                addPairs(deltas, previous, -1);
+            }
+        }
+
+        List<Object[]> pairRows = new ArrayList<>(deltas.size());
+        deltas.forEach((product, related, delta) -> pairRows.add(new Object[]{product, related, delta}));
+        jdbcTemplate.batchUpdate(UPSERT_PAIR, pairRows);
+
+        jdbcTemplate.batchUpdate(UPSERT_CART_STATE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ChangedCart cart = chunk.get(i);
+                Array products = ps.getConnection().createArrayOf("bigint",
+                        current.getOrDefault(cart.cartId(), new TreeSet<>()).toArray());
+                ps.setObject(1, cart.cartId());
+                ps.setTimestamp(2, cart.updatedAt());
+                ps.setArray(3, products);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+    }
+
+    // Both directions, so each product's neighbours are one index range scan
+    private static void addPairs(PairCounts deltas, Long[] products, int delta) {
+        for (int i = 0; i < products.length; i++) {
+            for (int j = i + 1; j < products.length; j++) {
+                deltas.add(products[i], products[j], delta);
+                deltas.add(products[j], products[i], delta);
+            }
+        }
+    }
+
+    private void loadNeighbours() {
+        Map<Long, List<Long>> loaded = new HashMap<>();
+        jdbcTemplate.query(TOP_NEIGHBOURS, rs -> {
+            loaded.computeIfAbsent(rs.getLong("product_id"), id -> new ArrayList<>(topK))
+                    .add(rs.getLong("related_product_id"));
+        }, minSupport, topK);
+
+        Map<Long, long[]> snapshot = new HashMap<>(loaded.size() * 2);
+        loaded.forEach((productId, related) ->
+                snapshot.put(productId, related.stream().mapToLong(Long::longValue).toArray()));
+        neighbours = Map.copyOf(snapshot);
+    }
+
+    private record ChangedCart(UUID cartId, Timestamp updatedAt) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.capstone.shoppingcart.services.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix of (product, product) -> count with primitive keys.
+ *
+ * Open addressing over parallel long/int arrays: no boxing and no entry objects, so a chunk of
+ * a few hundred thousand pairs costs a few megabytes instead of a HashMap's tens.
+ */
+final class PairCounts {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] rows;
+    private long[] columns;
+    private int[] counts;
+    private int size;
+
+    PairCounts(int expectedPairs) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedPairs * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Add delta to the count of (row, column)
+     */
+    void add(long row, long column, int delta) {
+        if ((size + 1) * 2 > rows.length) {
+            resize();
+        }
+        int slot = slot(row, column);
+        if (rows[slot] == EMPTY) {
+            rows[slot] = row;
+            columns[slot] = column;
+            size++;
+        }
+        counts[slot] += delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(PairConsumer consumer) {
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != EMPTY && counts[i] != 0) {
+                consumer.accept(rows[i], columns[i], counts[i]);
+            }
+        }
+    }
+
+    private int slot(long row, long column) {
+        int mask = rows.length - 1;
+        int slot = mix(row * 31 + column) & mask;
+        while (rows[slot] != EMPTY && (rows[slot] != row || columns[slot] != column)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldRows = rows;
+        long[] oldColumns = columns;
+        int[] oldCounts = counts;
+        allocate(oldRows.length * 2);
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] != EMPTY) {
+                int slot = slot(oldRows[i], oldColumns[i]);
+                rows[slot] = oldRows[i];
+                columns[slot] = oldColumns[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        rows = new long[capacity];
+        Arrays.fill(rows, EMPTY);
+        columns = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    // Murmur3 finalizer: spreads sequential ids across the table
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(long row, long column, int count);
+    }
+}
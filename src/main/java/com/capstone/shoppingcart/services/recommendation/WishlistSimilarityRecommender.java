@@ -0,0 +1,308 @@
+package com.capstone.shoppingcart.services.recommendation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * "Customers also wishlisted": products that share wish lists, ranked by Jaccard similarity
+ * (wish lists containing both / wish lists containing either).
+ *
+ * The wish list contents are mirrored in memory (wish list -> products and product -> wish
+ * lists). A scheduled job reads only the wish lists changed since the last run, applies them
+ * to the mirror and recomputes the neighbours of the products whose scores can have moved:
+ * the added/removed products and everything sharing a wish list with them. The recomputation
+ * is split across a dedicated fork-join pool; requests only read the resulting map.
+ *
+ * Deleted wish lists leave no row to read, so a trigger records a tombstone in
+ * wish_list_deletions (see DatabaseSchemaInitializer) and each run reads the new tombstones.
+ */
+@Service
+public class WishlistSimilarityRecommender {
+
+    private static final Logger log = LoggerFactory.getLogger(WishlistSimilarityRecommender.class);
+
+    private static final String ALL_WISH_LISTS =
+            "SELECT w.wish_list_id, w.updated_at, wp.product_id FROM wish_lists w " +
+            "LEFT JOIN wish_list_products wp ON wp.wish_list_id = w.wish_list_id";
+
+    // Re-reading a wish list that has not changed since the last run is a no-op
+    private static final String CHANGED_WISH_LISTS = ALL_WISH_LISTS + " WHERE w.updated_at >= ?";
+
+    // deleted_at is stamped by the database clock, so it gets its own watermark
+    private static final String DELETED_WISH_LISTS =
+            "SELECT wish_list_id, deleted_at FROM wish_list_deletions WHERE deleted_at >= ?";
+
+    private static final String LAST_DELETION = "SELECT max(deleted_at) FROM wish_list_deletions";
+
+    private static final String DELETE_EXPIRED_TOMBSTONES = "DELETE FROM wish_list_deletions WHERE deleted_at < ?";
+
+    // Products per fork-join leaf task
+    private static final int LEAF_SIZE = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool pool;
+
+    // Mirror of wish_list_products; only touched by the (synchronized) refresh and its tasks
+    private final Map<UUID, long[]> wishListProducts = new HashMap<>();
+    private final Map<Long, Set<UUID>> productWishLists = new HashMap<>();
+    private Timestamp watermark;
+    private Timestamp deletionWatermark;
+
+    private final Map<Long, long[]> neighbours = new ConcurrentHashMap<>();
+
+    @Value("${app.recommendations.wishlist.top-k:10}")
+    private int topK;
+
+    // Pairs found in fewer wish lists than this are noise
+    @Value("${app.recommendations.wishlist.min-support:2}")
+    private int minSupport;
+
+    // updated_at is stamped before the transaction commits, so a wish list can become visible after
+    // a newer one was already read; each run re-reads this far behind the watermark to catch it
+    @Value("${app.recommendations.wishlist.watermark-lag:5m}")
+    private Duration watermarkLag;
+
+    // Tombstones are read within a run or two; they are kept this long for instances lagging behind
+    @Value("${app.recommendations.wishlist.tombstone-retention:1d}")
+    private Duration tombstoneRetention;
+
+    public WishlistSimilarityRecommender(JdbcTemplate jdbcTemplate,
+                                         @Value("${app.recommendations.wishlist.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Products most often wishlisted together with the given one, most similar first
+     */
+    public long[] similarProductIds(Long productId) {
+        return neighbours.getOrDefault(productId, new long[0]);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommendations.wishlist.refresh-interval:300000}",
+               initialDelayString = "${app.recommendations.wishlist.refresh-interval:300000}")
+    public synchronized void refresh() {
+        try {
+            boolean full = watermark == null;
+            Map<UUID, long[]> changed;
+            Set<UUID> deleted = Set.of();
+            if (full) {
+                // Tombstones older than the full read are already reflected in it
+                Timestamp lastDeletion = jdbcTemplate.queryForObject(LAST_DELETION, Timestamp.class);
+                deletionWatermark = lastDeletion != null ? lastDeletion : new Timestamp(0);
+                changed = readWishLists(ALL_WISH_LISTS);
+            } else {
+                changed = readWishLists(CHANGED_WISH_LISTS, lagged(watermark));
+                deleted = readDeletions();
+                for (UUID wishListId : deleted) {
+                    changed.put(wishListId, new long[0]);
+                }
+                jdbcTemplate.update(DELETE_EXPIRED_TOMBSTONES,
+                        new Timestamp(deletionWatermark.getTime() - tombstoneRetention.toMillis()));
+            }
+
+            Set<Long> affected = apply(changed);
+            wishListProducts.keySet().removeAll(deleted);
+            if (!affected.isEmpty()) {
+                pool.invoke(new RecomputeTask(affected.stream().mapToLong(Long::longValue).toArray(), 0, affected.size()));
+            }
+            if (full) {
+                // Swapped entry by entry, so requests keep being served during a full reload
+                neighbours.keySet().retainAll(affected);
+            }
+            log.info("Also-wishlisted refreshed. full={}, wishListsChanged={}, wishListsDeleted={}, productsRecomputed={}",
+                    full, changed.size(), deleted.size(), affected.size());
+        } catch (DataAccessException ex) {
+            log.warn("Also-wishlisted refresh failed: {}", ex.getMostSpecificCause().getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Mirrored wish lists deleted since the last run; tombstones re-read within the lag are skipped
+     */
+    private Set<UUID> readDeletions() {
+        Set<UUID> deleted = new HashSet<>();
+        Timestamp[] newest = {deletionWatermark};
+        jdbcTemplate.query(DELETED_WISH_LISTS, (RowCallbackHandler) rs -> {
+            UUID wishListId = rs.getObject("wish_list_id", UUID.class);
+            if (wishListProducts.containsKey(wishListId)) {
+                deleted.add(wishListId);
+            }
+            Timestamp deletedAt = rs.getTimestamp("deleted_at");
+            if (deletedAt.after(newest[0])) {
+                newest[0] = deletedAt;
+            }
+        }, lagged(deletionWatermark));
+        deletionWatermark = newest[0];
+        return deleted;
+    }
+
+    private Timestamp lagged(Timestamp timestamp) {
+        return new Timestamp(timestamp.getTime() - watermarkLag.toMillis());
+    }
+
+    private Map<UUID, long[]> readWishLists(String sql, Object... args) {
+        Map<UUID, List<Long>> rows = new HashMap<>();
+        Timestamp[] newest = {watermark};
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            List<Long> products = rows.computeIfAbsent(rs.getObject("wish_list_id", UUID.class), id -> new ArrayList<>());
+            long productId = rs.getLong("product_id");
+            if (!rs.wasNull()) {
+                products.add(productId);
+            }
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            if (updatedAt != null && (newest[0] == null || updatedAt.after(newest[0]))) {
+                newest[0] = updatedAt;
+            }
+        }, args);
+        // Wish lists never changed since the column was added have no timestamp; start from the epoch then
+        watermark = newest[0] != null ? newest[0] : new Timestamp(0);
+
+        Map<UUID, long[]> wishLists = new HashMap<>(rows.size() * 2);
+        rows.forEach((id, products) ->
+                wishLists.put(id, products.stream().mapToLong(Long::longValue).sorted().distinct().toArray()));
+        return wishLists;
+    }
+
+    /**
+     * Apply changed wish lists to the mirror
+     * @return Products whose neighbours may have changed
+     */
+    private Set<Long> apply(Map<UUID, long[]> changed) {
+        Set<Long> dirty = new HashSet<>();
+        Set<Long> affected = new HashSet<>();
+        changed.forEach((wishListId, products) -> {
+            long[] previous = wishListProducts.getOrDefault(wishListId, new long[0]);
+            if (Arrays.equals(previous, products)) {
+                return;
+            }
+            for (long productId : previous) {
+                if (Arrays.binarySearch(products, productId) < 0) {
+                    dirty.add(productId);
+                    Set<UUID> wishLists = productWishLists.get(productId);
+                    wishLists.remove(wishListId);
+                    if (wishLists.isEmpty()) {
+                        productWishLists.remove(productId);
+                    }
+                }
+                // Lost (or changed) their overlap with this wish list's products
+                affected.add(productId);
+            }
+            for (long productId : products) {
+                if (Arrays.binarySearch(previous, productId) < 0) {
+                    dirty.add(productId);
+                    productWishLists.computeIfAbsent(productId, id -> new HashSet<>()).add(wishListId);
+                }
+                affected.add(productId);
+            }
+            wishListProducts.put(wishListId, products);
+        });
+
+        // A dirty product's wish list count is in every Jaccard score it takes part in
+        for (Long productId : dirty) {
+            for (UUID wishListId : productWishLists.getOrDefault(productId, Set.of())) {
+                for (long other : wishListProducts.get(wishListId)) {
+                    affected.add(other);
+                }
+            }
+        }
+        return affected;
+    }
+
+    private long[] topNeighbours(long productId) {
+        Set<UUID> wishLists = productWishLists.get(productId);
+        if (wishLists == null) {
+            return new long[0];
+        }
+
+        Map<Long, Integer> shared = new HashMap<>();
+        for (UUID wishListId : wishLists) {
+            for (long other : wishListProducts.get(wishListId)) {
+                if (other != productId) {
+                    shared.merge(other, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Scored> scored = new ArrayList<>();
+        shared.forEach((other, both) -> {
+            if (both >= minSupport) {
+                int either = wishLists.size() + productWishLists.get(other).size() - both;
+                scored.add(new Scored(other, (double) both / either));
+            }
+        });
+        return scored.stream()
+                .sorted((a, b) -> a.score() != b.score()
+                        ? Double.compare(b.score(), a.score())
+                        : Long.compare(a.productId(), b.productId()))
+                .limit(topK)
+                .mapToLong(Scored::productId)
+                .toArray();
+    }
+
+    private final class RecomputeTask extends RecursiveAction {
+
+        private final long[] productIds;
+        private final int from;
+        private final int to;
+
+        private RecomputeTask(long[] productIds, int from, int to) {
+            this.productIds = productIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RecomputeTask(productIds, from, middle), new RecomputeTask(productIds, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                long[] similar = topNeighbours(productIds[i]);
+                if (similar.length == 0) {
+                    neighbours.remove(productIds[i]);
+                } else {
+                    neighbours.put(productIds[i], similar);
+                }
+            }
+        }
+    }
+
+    private record Scored(long productId, double score) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.capstone.shoppingcart.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie with the top-k entries precomputed on every node.
+ *
+ * Nodes are stored in flat arrays (children of a node are contiguous and sorted by
+ * character), so a lookup is a walk with binary searches and allocates nothing but
+ * the result list.
+ */
+final class PrefixTrie<T> {
+
+    // Keys longer than this are truncated; nobody types that far before picking a suggestion
+    private static final int MAX_KEY_LENGTH = 32;
+
+    private final List<T> entries;
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[][] topK;
+
+    private PrefixTrie(List<T> entries, char[] labels, int[] firstChild, int[] childCount, int[][] topK) {
+        this.entries = entries;
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.topK = topK;
+    }
+
+    /**
+     * Top entries whose key starts with the given prefix, best first
+     * @param prefix - Normalized prefix (see {@link Builder#add})
+     * @param limit - Maximum number of entries (capped by k)
+     */
+    List<T> lookup(String prefix, int limit) {
+        int node = 0;
+        int length = Math.min(prefix.length(), MAX_KEY_LENGTH);
+        for (int i = 0; i < length && node >= 0; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        if (node < 0) {
+            return List.of();
+        }
+
+        int[] best = topK[node];
+        int count = Math.min(limit, best.length);
+        List<T> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries.get(best[i]));
+        }
+        return result;
+    }
+
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Collects (key, entry) pairs. Entries must be added best-first: an entry's rank is its
+     * insertion order, which lets top-k lists be merged as sorted int arrays.
+     */
+    static final class Builder<T> {
+
+        private final int k;
+        private final List<T> entries = new ArrayList<>();
+        private final MutableNode root = new MutableNode();
+
+        Builder(int k) {
+            this.k = k;
+        }
+
+        /**
+         * Add an entry under several keys (e.g. the full name and each word suffix)
+         */
+        void add(T entry, List<String> keys) {
+            int rank = entries.size();
+            entries.add(entry);
+            for (String key : keys) {
+                MutableNode node = root;
+                int length = Math.min(key.length(), MAX_KEY_LENGTH);
+                for (int i = 0; i < length; i++) {
+                    node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+                }
+                node.ranks.add(rank);
+            }
+        }
+
+        PrefixTrie<T> build() {
+            // Breadth-first numbering keeps each node's children contiguous
+            List<MutableNode> order = new ArrayList<>();
+            order.add(root);
+            for (int i = 0; i < order.size(); i++) {
+                order.get(i).index = i;
+                order.addAll(order.get(i).children.values());
+            }
+
+            int size = order.size();
+            char[] labels = new char[size];
+            int[] firstChild = new int[size];
+            int[] childCount = new int[size];
+            int[][] topK = new int[size][];
+
+            for (MutableNode node : order) {
+                childCount[node.index] = node.children.size();
+                boolean first = true;
+                for (var child : node.children.entrySet()) {
+                    labels[child.getValue().index] = child.getKey();
+                    if (first) {
+                        firstChild[node.index] = child.getValue().index;
+                        first = false;
+                    }
+                }
+            }
+
+            // Children always have larger indexes, so walking backwards fills them first
+            for (int i = size - 1; i >= 0; i--) {
+                MutableNode node = order.get(i);
+                int[] merged = node.ranks.stream().mapToInt(Integer::intValue).sorted().distinct().limit(k).toArray();
+                for (MutableNode child : node.children.values()) {
+                    merged = mergeTopK(merged, topK[child.index], k);
+                }
+                topK[i] = merged;
+            }
+
+            return new PrefixTrie<>(List.copyOf(entries), labels, firstChild, childCount, topK);
+        }
+
+        private static int[] mergeTopK(int[] a, int[] b, int k) {
+            int[] out = new int[Math.min(k, a.length + b.length)];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (n < out.length && (i < a.length || j < b.length)) {
+                int next;
+                if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                    next = a[i++];
+                } else {
+                    next = b[j++];
+                }
+                if (n == 0 || out[n - 1] != next) {
+                    out[n++] = next;
+                }
+            }
+            return n == out.length ? out : Arrays.copyOf(out, n);
+        }
+    }
+
+    private static final class MutableNode {
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+        private final List<Integer> ranks = new ArrayList<>(1);
+        private int index;
+    }
+}
@@ -0,0 +1,500 @@
+package com.capstone.shoppingcart.services.search;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name and description.
+ *
+ * Every token maps to a posting list of product ids with a field-weighted term frequency,
+ * and results are ranked with BM25. All query terms must match; the last term is matched
+ * as a prefix so the index can serve search-as-you-type requests.
+ *
+ * The term dictionary is also indexed by trigram so misspelled query words can be
+ * corrected without scanning every term.
+ *
+ * A rebuild reads the catalog without holding any lock. Products changed while it runs
+ * (or before the first build) are queued and re-read after the swap, so a rebuild never
+ * replaces a newer single-product update with its older snapshot.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A name hit counts three times as much as a description hit
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> weighted term frequency)
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // trigram -> terms containing it
+    private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+    // categoryId -> productIds
+    private final Map<Long, Set<Long>> categoryPostings = new HashMap<>();
+    private final Map<Long, IndexedProduct> documents = new HashMap<>();
+    private double totalLength;
+
+    private volatile boolean ready;
+
+    // Serializes single-product updates (read and apply) and guards the build state below
+    private final ReentrantLock writerLock = new ReentrantLock();
+    // Products to re-read once the pending build is swapped in; null when no build is pending
+    private Set<Long> queuedIds = new HashSet<>();
+    private boolean building;
+    private boolean rebuildRequested;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Build the index once the application (including data seeding) has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writerLock.lock();
+        try {
+            if (building) {
+                // The running build reads the catalog again once its current snapshot is swapped in
+                rebuildRequested = true;
+                return;
+            }
+            building = true;
+            if (queuedIds == null) {
+                queuedIds = new HashSet<>();
+            }
+        } finally {
+            writerLock.unlock();
+        }
+
+        try {
+            boolean again;
+            do {
+                List<ProductResponseDto> products = productRepository.findAllDtos();
+                swap(products);
+                log.info("Product search index built. products={}, terms={}", products.size(), postings.size());
+
+                writerLock.lock();
+                try {
+                    again = rebuildRequested;
+                    rebuildRequested = false;
+                    if (!again) {
+                        // Nothing is queued meanwhile: new changes wait for the lock and then apply directly
+                        reindex(queuedIds);
+                        queuedIds = null;
+                        building = false;
+                        ready = true;
+                    }
+                } finally {
+                    writerLock.unlock();
+                }
+            } while (again);
+        } catch (RuntimeException ex) {
+            // Queued products stay queued for the next build
+            writerLock.lock();
+            try {
+                building = false;
+            } finally {
+                writerLock.unlock();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Re-index products changed by admin operations once their transaction has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.reloadAll()) {
+            rebuild();
+            return;
+        }
+        if (event.productIds().isEmpty()) {
+            return;
+        }
+
+        writerLock.lock();
+        try {
+            if (queuedIds != null) {
+                queuedIds.addAll(event.productIds());
+                return;
+            }
+            reindex(event.productIds());
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void swap(List<ProductResponseDto> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            trigramTerms.clear();
+            categoryPostings.clear();
+            documents.clear();
+            totalLength = 0;
+            for (ProductResponseDto product : products) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds writerLock, so the products are read and applied in the order their changes arrived
+    private void reindex(Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<ProductResponseDto> products = productRepository.findDtosByIdIn(productIds);
+
+        lock.writeLock().lock();
+        try {
+            for (Long productId : productIds) {
+                remove(productId);
+            }
+            for (ProductResponseDto product : products) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Search the index
+     * @param query - Free text query
+     * @param categoryId - Optional category filter (null for all categories)
+     * @param pageable - Page number and size; results are always ordered by relevance
+     * @return Page of matching products ranked by BM25 score
+     */
+    public Page<ProductResponseDto> search(String query, Long categoryId, Pageable pageable) {
+        List<String> terms = SearchTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, Double>> ranked = rank(terms, categoryId);
+
+            int from = (int) Math.min(pageable.getOffset(), ranked.size());
+            int to = Math.min(from + pageable.getPageSize(), ranked.size());
+
+            List<ProductResponseDto> content = new ArrayList<>(to - from);
+            for (Map.Entry<Long, Double> entry : ranked.subList(from, to)) {
+                content.add(documents.get(entry.getKey()).product());
+            }
+            return new PageImpl<>(content, pageable, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cursor variant of search: results ranked after the given (score, id) position
+     * @param query - Free text query
+     * @param categoryId - Optional category filter (null for all categories)
+     * @param afterScore - Score of the last result of the previous slice (null for the first slice)
+     * @param afterId - Id of the last result of the previous slice (null for the first slice)
+     * @param limit - Maximum results to return
+     * @return Products with their scores, best first
+     */
+    public List<ScoredProduct> scroll(String query, Long categoryId, Double afterScore, Long afterId, int limit) {
+        List<String> terms = SearchTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, Double>> ranked = rank(terms, categoryId);
+
+            int from = 0;
+            if (afterId != null) {
+                while (from < ranked.size() && !isAfter(ranked.get(from), afterScore, afterId)) {
+                    from++;
+                }
+            }
+            int to = Math.min(from + limit, ranked.size());
+
+            List<ScoredProduct> content = new ArrayList<>(to - from);
+            for (Map.Entry<Long, Double> entry : ranked.subList(from, to)) {
+                content.add(new ScoredProduct(documents.get(entry.getKey()).product(), entry.getValue()));
+            }
+            return content;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ranking order is score descending, then id ascending
+    private static boolean isAfter(Map.Entry<Long, Double> entry, double afterScore, long afterId) {
+        return entry.getValue() < afterScore || (entry.getValue() == afterScore && entry.getKey() > afterId);
+    }
+
+    private List<Map.Entry<Long, Double>> rank(List<String> terms, Long categoryId) {
+        Map<Long, Double> scores = score(terms, categoryId);
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return ranked;
+    }
+
+    /**
+     * Correct misspelled query words against the term dictionary
+     * @param query - Free text query that matched nothing
+     * @param threshold - Minimum trigram similarity (0..1) for a replacement word
+     * @return Corrected query, or null when no word could be corrected
+     */
+    public String correct(String query, double threshold) {
+        List<String> terms = SearchTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<String> corrected = new ArrayList<>(terms.size());
+            boolean changed = false;
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean prefix = i == terms.size() - 1;
+                boolean known = prefix ? !prefixRange(term).isEmpty() : postings.containsKey(term);
+                if (known) {
+                    corrected.add(term);
+                    continue;
+                }
+
+                String replacement = closestTerm(term, threshold);
+                if (replacement == null) {
+                    return null;
+                }
+                corrected.add(replacement);
+                changed = true;
+            }
+            return changed ? String.join(" ", corrected) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String closestTerm(String term, double threshold) {
+        Set<String> queryTrigrams = trigrams(term);
+
+        // Count shared trigrams per candidate using the trigram postings only
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String candidate : trigramTerms.getOrDefault(trigram, Set.of())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        String best = null;
+        double bestSimilarity = 0;
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            int candidateTrigrams = trigrams(candidate).size();
+            double similarity = (double) entry.getValue()
+                    / (queryTrigrams.size() + candidateTrigrams - entry.getValue());
+            if (similarity < threshold) {
+                continue;
+            }
+            // Ties go to the term found in more products
+            if (best == null || similarity > bestSimilarity
+                    || (similarity == bestSimilarity && isMoreFrequent(candidate, best))) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+
+    private boolean isMoreFrequent(String term, String other) {
+        return postings.get(term).size() > postings.get(other).size();
+    }
+
+    // pg_trgm style trigrams: the word is padded with two leading and one trailing space
+    private static Set<String> trigrams(String term) {
+        String padded = "  " + term + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private Map<Long, Double> score(List<String> terms, Long categoryId) {
+        Map<Long, Double> scores = null;
+        double averageLength = documents.isEmpty() ? 1 : totalLength / documents.size();
+
+        for (int i = 0; i < terms.size(); i++) {
+            boolean prefix = i == terms.size() - 1;
+            Map<Long, Double> termScores = scoreTerm(terms.get(i), prefix, averageLength);
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // AND semantics: keep only products matching every term
+                Map<Long, Double> merged = new HashMap<>();
+                Map<Long, Double> smaller = scores.size() <= termScores.size() ? scores : termScores;
+                Map<Long, Double> larger = smaller == scores ? termScores : scores;
+                for (Map.Entry<Long, Double> entry : smaller.entrySet()) {
+                    Double other = larger.get(entry.getKey());
+                    if (other != null) {
+                        merged.put(entry.getKey(), entry.getValue() + other);
+                    }
+                }
+                scores = merged;
+            }
+
+            if (scores.isEmpty()) {
+                return scores;
+            }
+        }
+
+        if (categoryId != null) {
+            Set<Long> inCategory = categoryPostings.getOrDefault(categoryId, Set.of());
+            scores.keySet().retainAll(inCategory);
+        }
+        return scores;
+    }
+
+    private Map<Long, Double> scoreTerm(String term, boolean prefix, double averageLength) {
+        Map<Long, Double> termScores = new HashMap<>();
+        Map<String, Map<Long, Float>> matches = prefix
+                ? prefixRange(term)
+                : single(term);
+
+        int documentCount = documents.size();
+        for (Map<Long, Float> postingList : matches.values()) {
+            int df = postingList.size();
+            double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+
+            for (Map.Entry<Long, Float> posting : postingList.entrySet()) {
+                double length = documents.get(posting.getKey()).length();
+                double tf = posting.getValue();
+                double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+                // A prefix expanding to several terms counts the best one only
+                termScores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return termScores;
+    }
+
+    private Map<String, Map<Long, Float>> single(String term) {
+        Map<Long, Float> postingList = postings.get(term);
+        return postingList == null ? Map.of() : Map.of(term, postingList);
+    }
+
+    private NavigableMap<String, Map<Long, Float>> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void add(ProductResponseDto product) {
+        Map<String, Float> termWeights = new HashMap<>();
+        float length = 0;
+        for (String token : SearchTokenizer.tokenize(product.getName())) {
+            termWeights.merge(token, NAME_WEIGHT, Float::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String token : SearchTokenizer.tokenize(product.getDescription())) {
+            termWeights.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+            length += DESCRIPTION_WEIGHT;
+        }
+
+        for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+            Map<Long, Float> postingList = postings.get(entry.getKey());
+            if (postingList == null) {
+                postingList = new HashMap<>();
+                postings.put(entry.getKey(), postingList);
+                for (String trigram : trigrams(entry.getKey())) {
+                    trigramTerms.computeIfAbsent(trigram, key -> new HashSet<>()).add(entry.getKey());
+                }
+            }
+            postingList.put(product.getId(), entry.getValue());
+        }
+        categoryPostings.computeIfAbsent(product.getCategoryId(), key -> new HashSet<>())
+                .add(product.getId());
+
+        documents.put(product.getId(), new IndexedProduct(product, length, termWeights.keySet()));
+        totalLength += length;
+    }
+
+    private void remove(Long productId) {
+        IndexedProduct existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+
+        for (String term : existing.terms()) {
+            Map<Long, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                    removeTrigrams(term);
+                }
+            }
+        }
+
+        Set<Long> inCategory = categoryPostings.get(existing.product().getCategoryId());
+        if (inCategory != null) {
+            inCategory.remove(productId);
+        }
+        totalLength -= existing.length();
+    }
+
+    private void removeTrigrams(String term) {
+        for (String trigram : trigrams(term)) {
+            Set<String> terms = trigramTerms.get(trigram);
+            if (terms != null) {
+                terms.remove(term);
+                if (terms.isEmpty()) {
+                    trigramTerms.remove(trigram);
+                }
+            }
+        }
+    }
+
+    public record ScoredProduct(ProductResponseDto product, double score) {
+    }
+
+    private record IndexedProduct(ProductResponseDto product, float length, Set<String> terms) {
+    }
+}
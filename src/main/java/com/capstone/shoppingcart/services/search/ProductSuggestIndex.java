@@ -0,0 +1,128 @@
+package com.capstone.shoppingcart.services.search;
+
+import com.capstone.shoppingcart.dtos.ProductSuggestResponseDto;
+import com.capstone.shoppingcart.dtos.SuggestionDto;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.repositories.CategoryRepository;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Search-as-you-type suggestions for product and category names.
+ *
+ * Names are indexed under their full text and under every word suffix, so "mou" suggests
+ * "Wireless Mouse". The tries are immutable and swapped atomically after admin changes;
+ * readers never touch the database.
+ */
+@Component
+public class ProductSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    // Suggestions precomputed per trie node; requests may ask for fewer
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    // Source of truth for rebuilds, so admin changes don't reload the whole catalog
+    private final Map<Long, String> productNames = new ConcurrentHashMap<>();
+    private final Map<Long, String> categoryNames = new ConcurrentHashMap<>();
+
+    private volatile PrefixTrie<SuggestionDto> productTrie = new PrefixTrie.Builder<SuggestionDto>(MAX_SUGGESTIONS).build();
+    private volatile PrefixTrie<SuggestionDto> categoryTrie = new PrefixTrie.Builder<SuggestionDto>(MAX_SUGGESTIONS).build();
+
+    public ProductSuggestIndex(ProductRepository productRepository, CategoryRepository categoryRepository) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        productNames.clear();
+        productRepository.findAllNames().forEach(product -> productNames.put(product.getId(), product.getName()));
+        categoryNames.clear();
+        categoryRepository.findAll().forEach(category -> categoryNames.put(category.getId(), category.getName()));
+
+        productTrie = buildTrie(productNames);
+        categoryTrie = buildTrie(categoryNames);
+
+        log.info("Product suggest index built. products={}, categories={}", productNames.size(), categoryNames.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.reloadAll()) {
+            rebuild();
+            return;
+        }
+        if (event.productIds().isEmpty()) {
+            return;
+        }
+
+        event.productIds().forEach(productNames::remove);
+        productRepository.findNamesByIdIn(event.productIds())
+                .forEach(product -> productNames.put(product.getId(), product.getName()));
+
+        productTrie = buildTrie(productNames);
+    }
+
+    /**
+     * Suggest product and category names for a prefix
+     * @param prefix - What the user has typed so far
+     * @param limit - Maximum suggestions per type (1..MAX_SUGGESTIONS)
+     * @return Matching product and category names, best first
+     */
+    public ProductSuggestResponseDto suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (key.isEmpty()) {
+            return new ProductSuggestResponseDto(List.of(), List.of());
+        }
+        // Keep the trailing space so "mouse " only suggests names with another word after it
+        if (prefix.endsWith(" ")) {
+            key = key + " ";
+        }
+
+        return new ProductSuggestResponseDto(productTrie.lookup(key, size), categoryTrie.lookup(key, size));
+    }
+
+    private static PrefixTrie<SuggestionDto> buildTrie(Map<Long, String> names) {
+        // Shorter names first, then alphabetical: the insertion order is the rank
+        List<Map.Entry<Long, String>> ranked = new ArrayList<>(names.entrySet());
+        ranked.sort(Comparator.comparing((Map.Entry<Long, String> entry) -> entry.getValue().length())
+                .thenComparing(Map.Entry::getValue)
+                .thenComparing(Map.Entry::getKey));
+
+        PrefixTrie.Builder<SuggestionDto> builder = new PrefixTrie.Builder<>(MAX_SUGGESTIONS);
+        for (Map.Entry<Long, String> entry : ranked) {
+            builder.add(new SuggestionDto(entry.getKey(), entry.getValue()), wordSuffixes(entry.getValue()));
+        }
+        return builder.build();
+    }
+
+    // "Wireless Mouse" -> ["wireless mouse", "mouse"]
+    private static List<String> wordSuffixes(String name) {
+        List<String> tokens = SearchTokenizer.tokenize(name);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", SearchTokenizer.tokenize(text));
+    }
+}
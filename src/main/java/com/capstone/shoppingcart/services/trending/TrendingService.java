@@ -0,0 +1,189 @@
+package com.capstone.shoppingcart.services.trending;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trending products ranked by recent views and cart adds.
+ *
+ * Requests only bump striped in-memory counters (LongAdder), so recording costs no database
+ * write. A scheduled flush moves the counts in one batch into hourly buckets
+ * (product_activity_buckets), adds cart adds to products.popularity, and recomputes the
+ * top products with exponentially decayed bucket scores. The result is kept in memory.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    // Upper bound for the trending list (and the endpoint's limit)
+    public static final int MAX_TRENDING = 50;
+
+    private static final String UPSERT_BUCKET =
+            "INSERT INTO product_activity_buckets (product_id, bucket_start, views, cart_adds) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (product_id, bucket_start) DO UPDATE SET " +
+            "views = product_activity_buckets.views + EXCLUDED.views, " +
+            "cart_adds = product_activity_buckets.cart_adds + EXCLUDED.cart_adds";
+
+    private static final String ADD_POPULARITY =
+            "UPDATE products SET popularity = popularity + ? WHERE product_id = ?";
+
+    private static final String DELETE_EXPIRED_BUCKETS =
+            "DELETE FROM product_activity_buckets WHERE bucket_start < ?";
+
+    // Each bucket's weight halves every half-life; buckets of deleted products are skipped
+    private static final String TOP_PRODUCTS =
+            "SELECT a.product_id FROM product_activity_buckets a " +
+            "JOIN products p ON p.product_id = a.product_id " +
+            "WHERE a.bucket_start >= ? " +
+            "GROUP BY a.product_id " +
+            "ORDER BY SUM((a.views + ? * a.cart_adds) * " +
+            "exp(-ln(2) * extract(epoch FROM (?::timestamp - a.bucket_start)) / ?)) DESC, a.product_id " +
+            "LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+
+    // Adders stay in place (one per product ever recorded) and are drained with sumThenReset, so an
+    // increment racing a flush is counted in this batch or the next one, never lost
+    private final Map<Long, LongAdder> views = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> cartAdds = new ConcurrentHashMap<>();
+    private volatile List<ProductResponseDto> trending = List.of();
+
+    @Value("${app.trending.half-life:6h}")
+    private Duration halfLife;
+
+    @Value("${app.trending.window:48h}")
+    private Duration window;
+
+    // A cart add counts as this many views
+    @Value("${app.trending.cart-add-weight:5}")
+    private double cartAddWeight;
+
+    public TrendingService(JdbcTemplate jdbcTemplate, ProductRepository productRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+    }
+
+    public void recordView(Long productId) {
+        views.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    public void recordCartAdd(Long productId) {
+        cartAdds.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Most trending products, best first
+     * @param limit - Maximum number of products (1..MAX_TRENDING)
+     */
+    public List<ProductResponseDto> getTrendingProducts(int limit) {
+        List<ProductResponseDto> current = trending;
+        return current.subList(0, Math.min(Math.max(limit, 1), current.size()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        recompute();
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.flush-interval:30000}",
+               initialDelayString = "${app.trending.flush-interval:30000}")
+    public void flushAndRecompute() {
+        flush();
+        recompute();
+    }
+
+    /**
+     * Write the counts gathered since the last flush in one batch per statement
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Long, Long> drainedViews = drain(views);
+        Map<Long, Long> drainedCartAdds = drain(cartAdds);
+        if (drainedViews.isEmpty() && drainedCartAdds.isEmpty()) {
+            return;
+        }
+
+        Timestamp bucket = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.HOURS));
+        Set<Long> productIds = new HashSet<>(drainedViews.keySet());
+        productIds.addAll(drainedCartAdds.keySet());
+
+        List<Object[]> bucketRows = new ArrayList<>(productIds.size());
+        List<Object[]> popularityRows = new ArrayList<>();
+        for (Long productId : productIds) {
+            long viewCount = drainedViews.getOrDefault(productId, 0L);
+            long cartAddCount = drainedCartAdds.getOrDefault(productId, 0L);
+            bucketRows.add(new Object[]{productId, bucket, viewCount, cartAddCount});
+            if (cartAddCount > 0) {
+                popularityRows.add(new Object[]{cartAddCount, productId});
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_BUCKET, bucketRows);
+            jdbcTemplate.batchUpdate(ADD_POPULARITY, popularityRows);
+            jdbcTemplate.update(DELETE_EXPIRED_BUCKETS, Timestamp.valueOf(LocalDateTime.now().minus(window)));
+        } catch (DataAccessException ex) {
+            // Activity is best effort: drop this batch rather than block requests or retry forever
+            log.warn("Trending flush failed, {} products dropped: {}", productIds.size(),
+                    ex.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void recompute() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<Long> ids = jdbcTemplate.queryForList(TOP_PRODUCTS, Long.class,
+                    Timestamp.valueOf(now.minus(window)), cartAddWeight, Timestamp.valueOf(now),
+                    (double) halfLife.toSeconds(), MAX_TRENDING);
+
+            Map<Long, ProductResponseDto> products = productRepository.findDtosByIdIn(ids).stream()
+                    .collect(Collectors.toMap(ProductResponseDto::getId, Function.identity()));
+            trending = ids.stream()
+                    .map(products::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (DataAccessException ex) {
+            log.warn("Trending recompute failed, keeping the previous list: {}", ex.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // Non-zero counts since the last drain; each adder is reset by swapping its cells to zero
+    private static Map<Long, Long> drain(Map<Long, LongAdder> counts) {
+        Map<Long, Long> drained = new HashMap<>();
+        counts.forEach((productId, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                drained.put(productId, count);
+            }
+        });
+        return drained;
+    }
+}
@@ -0,0 +1,94 @@
+package com.capstone.shoppingcart.config;
+
+import com.capstone.shoppingcart.entities.CartItem;
+import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.entities.Promotion;
+import jakarta.persistence.SequenceGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DatabaseSchemaInitializerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DatabaseSchemaInitializer initializer = new DatabaseSchemaInitializer(jdbcTemplate);
+
+    private final List<String> executed = new ArrayList<>();
+
+    @BeforeEach
+    void recordStatements() {
+        ReflectionTestUtils.setField(initializer, "schemaInitEnabled", true);
+        doAnswer(invocation -> executed.add(invocation.getArgument(0))).when(jdbcTemplate).execute(anyString());
+    }
+
+    @Test
+    void sequencesMatchTheEntityGenerators() throws NoSuchFieldException {
+        initializer.run();
+
+        for (Class<?> entity : List.of(Product.class, CartItem.class, Promotion.class)) {
+            SequenceGenerator generator = entity.getDeclaredField("id").getAnnotation(SequenceGenerator.class);
+            // Hibernate's pooled optimizer assumes the sequence steps by the allocation size
+            assertThat(executed).contains("CREATE SEQUENCE IF NOT EXISTS " + generator.sequenceName() +
+                    " INCREMENT BY " + generator.allocationSize());
+        }
+    }
+
+    @Test
+    void sequenceIsMovedPastExistingIdsBeforeIdentityIsDropped() {
+        initializer.run();
+
+        int create = executed.indexOf("CREATE SEQUENCE IF NOT EXISTS products_seq INCREMENT BY 50");
+        int setval = indexOfPrefix("SELECT setval('products_seq'");
+        int dropIdentity = executed.indexOf("ALTER TABLE products ALTER COLUMN product_id DROP IDENTITY IF EXISTS");
+
+        assertThat(create).isNotNegative().isLessThan(setval);
+        assertThat(setval).isLessThan(dropIdentity);
+        // Never moves backwards: another instance may already hold a block
+        assertThat(executed.get(setval)).isEqualTo("SELECT setval('products_seq', GREATEST(" +
+                "(SELECT coalesce(max(product_id), 0) FROM products) + 50, (SELECT last_value FROM products_seq)))");
+    }
+
+    @Test
+    void failingStatementDoesNotStopTheOthers() {
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.contains("search_vector tsvector")) {
+                throw new DataAccessResourceFailureException("permission denied");
+            }
+            return executed.add(sql);
+        }).when(jdbcTemplate).execute(anyString());
+
+        initializer.run();
+
+        assertThat(executed).anyMatch(sql -> sql.startsWith("CREATE SEQUENCE IF NOT EXISTS promotions_seq"));
+    }
+
+    @Test
+    void disabledInitializationRunsNothing() {
+        ReflectionTestUtils.setField(initializer, "schemaInitEnabled", false);
+
+        initializer.run();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private int indexOfPrefix(String prefix) {
+        for (int i = 0; i < executed.size(); i++) {
+            if (executed.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,100 @@
+package com.capstone.shoppingcart.controllers.customer;
+
+import com.capstone.shoppingcart.dtos.CategoryResponseDto;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.services.CatalogVersionService;
+import com.capstone.shoppingcart.services.CategoryService;
+import com.capstone.shoppingcart.services.PromotionSchedule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CategoryControllerTest {
+
+    private final CategoryService categoryService = mock(CategoryService.class);
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService(mock(PromotionSchedule.class));
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new CategoryController(categoryService, catalogVersionService))
+            .build();
+
+    @Test
+    void unchangedCategoryIsAnsweredWith304() throws Exception {
+        when(categoryService.getCategoryById(1L)).thenReturn(category(1L));
+        String eTag = catalogVersionService.categoryETag(1L);
+
+        mockMvc.perform(get("/api/customer/v1/categories/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", eTag));
+        mockMvc.perform(get("/api/customer/v1/categories/1").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        verify(categoryService, times(1)).getCategoryById(1L);
+    }
+
+    @Test
+    void changeInTheCategoryInvalidatesItsETag() throws Exception {
+        when(categoryService.getCategoryById(1L)).thenReturn(category(1L));
+        String before = catalogVersionService.categoryETag(1L);
+
+        catalogVersionService.onCatalogChanged(ProductCatalogChangedEvent.of(5L, 1L));
+
+        mockMvc.perform(get("/api/customer/v1/categories/1").header("If-None-Match", before))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", catalogVersionService.categoryETag(1L)));
+    }
+
+    @Test
+    void changeInAnotherCategoryKeepsTheETag() throws Exception {
+        String before = catalogVersionService.categoryETag(1L);
+
+        catalogVersionService.onCatalogChanged(new ProductCatalogChangedEvent(Set.of(5L), Set.of(2L), false));
+
+        mockMvc.perform(get("/api/customer/v1/categories/1").header("If-None-Match", before))
+                .andExpect(status().isNotModified());
+        verify(categoryService, never()).getCategoryById(any());
+    }
+
+    @Test
+    void categoryListFollowsTheCatalogVersion() throws Exception {
+        when(categoryService.getAllCategories()).thenReturn(List.of(category(1L)));
+        String before = catalogVersionService.catalogETag();
+
+        mockMvc.perform(get("/api/customer/v1/categories").header("If-None-Match", before))
+                .andExpect(status().isNotModified());
+        catalogVersionService.bump(Set.of(1L));
+        mockMvc.perform(get("/api/customer/v1/categories").header("If-None-Match", before))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void popularityOrderIsNeverAnsweredWith304() throws Exception {
+        when(categoryService.getProductsByCategory(eq(1L), any(), anyBoolean())).thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 10), 0));
+        String eTag = catalogVersionService.categoryETag(1L);
+
+        mockMvc.perform(get("/api/customer/v1/categories/1/products").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/customer/v1/categories/1/products?sortBy=popularity").header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    private static CategoryResponseDto category(Long id) {
+        return CategoryResponseDto.builder().id(id).name("Electronics").build();
+    }
+}
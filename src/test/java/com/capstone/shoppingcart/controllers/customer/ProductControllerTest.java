@@ -0,0 +1,43 @@
+package com.capstone.shoppingcart.controllers.customer;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.services.CatalogVersionService;
+import com.capstone.shoppingcart.services.ProductService;
+import com.capstone.shoppingcart.services.PromotionSchedule;
+import com.capstone.shoppingcart.services.search.ProductSuggestIndex;
+import com.capstone.shoppingcart.services.trending.TrendingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductControllerTest {
+
+    private final ProductService productService = mock(ProductService.class);
+    private final TrendingService trendingService = mock(TrendingService.class);
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService(mock(PromotionSchedule.class));
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new ProductController(productService, mock(ProductSuggestIndex.class),
+                    catalogVersionService, trendingService))
+            .build();
+
+    @Test
+    void viewAnsweredWith304IsStillRecorded() throws Exception {
+        when(productService.getProductById(7L)).thenReturn(ProductResponseDto.builder().id(7L).name("Laptop").build());
+        String eTag = catalogVersionService.catalogETag();
+
+        mockMvc.perform(get("/api/customer/v1/products/7"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/customer/v1/products/7").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        verify(productService, times(1)).getProductById(7L);
+        verify(trendingService, times(2)).recordView(7L);
+    }
+}
@@ -0,0 +1,41 @@
+package com.capstone.shoppingcart.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartTest {
+
+    @Test
+    void centsAreRoundedHalfUpFromTheDecimalValue() {
+        assertThat(Cart.toCents(19.99)).isEqualTo(1999);
+        assertThat(Cart.toCents(0.125)).isEqualTo(13);
+        assertThat(Cart.toCents(0.1 + 0.2)).isEqualTo(30);
+        assertThat(Cart.toCents(1.005)).isEqualTo(101);
+        assertThat(Cart.toCents(0)).isZero();
+    }
+
+    @Test
+    void recomputedSummaryMatchesTheItems() {
+        Cart cart = cart(item(19.99, 2), item(0.1, 3));
+
+        cart.recomputeSummary();
+
+        assertThat(cart.getLineCount()).isEqualTo(2);
+        assertThat(cart.getTotalQuantity()).isEqualTo(5);
+        assertThat(cart.getSubtotalCents()).isEqualTo(2 * 1999 + 3 * 10);
+    }
+
+    private static Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setCartItems(new ArrayList<>(List.of(items)));
+        return cart;
+    }
+
+    private static CartItem item(double price, int quantity) {
+        return CartItem.builder().price(price).quantity(quantity).build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.capstone.shoppingcart.enums;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductSortTest {
+
+    @Test
+    void keysResolveCaseInsensitively() {
+        assertThat(ProductSort.fromKey("price")).isEqualTo(ProductSort.PRICE);
+        assertThat(ProductSort.fromKey("Newest")).isEqualTo(ProductSort.NEWEST);
+    }
+
+    @Test
+    void anythingOutsideTheWhitelistIsRejected() {
+        // Property names are not keys: only the whitelisted aliases are accepted
+        assertThatThrownBy(() -> ProductSort.fromKey("createdAt"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported sort: createdAt. Allowed: id, price, newest, name, popularity");
+        assertThatThrownBy(() -> ProductSort.fromKey("description"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductSort.fromKey(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sortsBreakTiesByIdInTheSameDirection() {
+        assertThat(ProductSort.PRICE.toSort("desc"))
+                .isEqualTo(Sort.by(Sort.Direction.DESC, "price").and(Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(ProductSort.ID.toSort("asc")).isEqualTo(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    void missingDirectionFallsBackToTheSortsDefault() {
+        assertThat(ProductSort.NEWEST.toSort(null))
+                .isEqualTo(Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(ProductSort.POPULARITY.direction(" ")).isEqualTo(Sort.Direction.DESC);
+        assertThat(ProductSort.NAME.direction(null)).isEqualTo(Sort.Direction.ASC);
+    }
+}
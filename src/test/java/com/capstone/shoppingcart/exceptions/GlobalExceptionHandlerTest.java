@@ -0,0 +1,49 @@
+package com.capstone.shoppingcart.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void duplicateKeyIsAConflict() {
+        var response = handler.handleDataIntegrityViolationException(new DuplicateKeyException("duplicate"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void uniqueViolationFromTheDriverIsAConflict() {
+        var ex = new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException(new SQLException("duplicate key value", "23505")));
+
+        assertThat(handler.handleDataIntegrityViolationException(ex).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void foreignKeyViolationStaysAServerError() {
+        var ex = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("violates foreign key constraint", "23503"));
+
+        var response = handler.handleDataIntegrityViolationException(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody()).containsEntry("error", "An unexpected error occurred");
+    }
+
+    @Test
+    void notNullViolationStaysAServerError() {
+        var ex = new DataIntegrityViolationException("null value in column", new SQLException("null value", "23502"));
+
+        assertThat(handler.handleDataIntegrityViolationException(ex).getStatusCode())
+                .isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,30 @@
+package com.capstone.shoppingcart.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.EntityGraph;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartRepositoryTest {
+
+    @Test
+    void cartLoadsFetchItemsProductsAndCategoriesInOneQuery() {
+        List<Method> loaders = Arrays.stream(CartRepository.class.getDeclaredMethods())
+                .filter(method -> method.getName().startsWith("findWithItemsBy"))
+                .toList();
+
+        assertThat(loaders).isNotEmpty();
+        for (Method loader : loaders) {
+            EntityGraph graph = loader.getAnnotation(EntityGraph.class);
+            // Anything left out of the graph falls back to the entity mapping and is selected per item
+            assertThat(graph).as(loader.getName()).isNotNull();
+            assertThat(graph.type()).as(loader.getName()).isEqualTo(EntityGraph.EntityGraphType.FETCH);
+            assertThat(graph.attributePaths()).as(loader.getName())
+                    .contains("cartItems", "cartItems.product", "cartItems.product.category");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.capstone.shoppingcart.repositories;
+
+import com.capstone.shoppingcart.entities.Address;
+import com.capstone.shoppingcart.entities.Cart;
+import com.capstone.shoppingcart.entities.CartItem;
+import com.capstone.shoppingcart.entities.Category;
+import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.entities.Profile;
+import com.capstone.shoppingcart.entities.Promotion;
+import com.capstone.shoppingcart.entities.User;
+import com.capstone.shoppingcart.entities.WishList;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Renders the scroll query with the PostgreSQL dialect against a JDBC stub that records the SQL,
+ * so the seek predicate can be checked without a database.
+ */
+class ProductRepositoryImplTest {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+    private static SessionFactory sessionFactory;
+
+    private Session session;
+    private ProductRepositoryImpl repository;
+
+    @BeforeAll
+    static void buildSessionFactory() {
+        Configuration configuration = new Configuration();
+        for (Class<?> entity : List.of(Address.class, Cart.class, CartItem.class, Category.class, Product.class,
+                Profile.class, Promotion.class, User.class, WishList.class)) {
+            configuration.addAnnotatedClass(entity);
+        }
+        configuration.setProperty(AvailableSettings.DIALECT, PostgreSQLDialect.class.getName());
+        configuration.setProperty("hibernate.boot.allow_jdbc_metadata_access", "false");
+        configuration.getProperties().put(AvailableSettings.CONNECTION_PROVIDER, new RecordingConnectionProvider());
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @AfterAll
+    static void closeSessionFactory() {
+        sessionFactory.close();
+    }
+
+    @BeforeEach
+    void openSession() {
+        statements.clear();
+        session = sessionFactory.openSession();
+        repository = new ProductRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", session);
+    }
+
+    @AfterEach
+    void closeSession() {
+        session.close();
+    }
+
+    @Test
+    void firstPageHasNoSeekPredicate() {
+        repository.scroll(null, null, "price", false, null, null, 20);
+
+        assertThat(sql()).doesNotContain("(p1_0.price,p1_0.product_id)")
+                .contains("order by p1_0.price,p1_0.product_id");
+    }
+
+    @Test
+    void ascendingPageSeeksWithRowValueComparison() {
+        repository.scroll(null, null, "price", false, 9.99, 42L, 20);
+
+        assertThat(sql()).contains("(p1_0.price,p1_0.product_id)>(?,?)")
+                .doesNotContain(" or ")
+                .contains("order by p1_0.price,p1_0.product_id");
+    }
+
+    @Test
+    void descendingPageSeeksBackwardsWithinCategory() {
+        repository.scroll(7L, null, "popularity", true, 15L, 42L, 20);
+
+        assertThat(sql()).contains("c1_0.category_id=?")
+                .contains("(p1_0.popularity,p1_0.product_id)<(?,?)")
+                .contains("order by p1_0.popularity desc,p1_0.product_id desc");
+    }
+
+    @Test
+    void idSortSeeksOnIdAlone() {
+        repository.scroll(null, "lamp", "id", true, 42L, 42L, 20);
+
+        assertThat(sql()).contains("p1_0.product_id<?")
+                .contains("like")
+                .contains("order by p1_0.product_id desc");
+    }
+
+    private static String sql() {
+        assertThat(statements).hasSize(1);
+        return statements.get(0);
+    }
+
+    private static final class RecordingConnectionProvider implements ConnectionProvider {
+
+        @Override
+        public Connection getConnection() {
+            ResultSet empty = mock(ResultSet.class);
+            PreparedStatement statement = mock(PreparedStatement.class, invocation ->
+                    invocation.getMethod().getName().equals("executeQuery") ? empty : RETURNS_DEFAULTS.answer(invocation));
+            return mock(Connection.class, invocation -> {
+                if (invocation.getMethod().getName().equals("prepareStatement")) {
+                    statements.add(invocation.getArgument(0));
+                    return statement;
+                }
+                return RETURNS_DEFAULTS.answer(invocation);
+            });
+        }
+
+        @Override
+        public void closeConnection(Connection connection) {
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.dtos.AddItemToCartRequest;
+import com.capstone.shoppingcart.dtos.CartItemOperation;
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
+import com.capstone.shoppingcart.dtos.UpdateCartItemRequest;
+import com.capstone.shoppingcart.entities.Cart;
+import com.capstone.shoppingcart.entities.CartItem;
+import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.entities.User;
+import com.capstone.shoppingcart.enums.CartOperationType;
+import com.capstone.shoppingcart.enums.CartStorageMode;
+import com.capstone.shoppingcart.mappers.CartMapper;
+import com.capstone.shoppingcart.repositories.CartItemRepository;
+import com.capstone.shoppingcart.repositories.CartRepository;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.repositories.UserRepository;
+import com.capstone.shoppingcart.services.cart.CartItemIdAllocator;
+import com.capstone.shoppingcart.services.cart.WriteBehindCartStore;
+import com.capstone.shoppingcart.services.trending.TrendingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CartServiceTest {
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CartMapper cartMapper = mock(CartMapper.class);
+    private final TrendingService trendingService = mock(TrendingService.class);
+    private final WriteBehindCartStore cartStore = mock(WriteBehindCartStore.class);
+    private final CartItemIdAllocator cartItemIdAllocator = mock(CartItemIdAllocator.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CartService cartService = new CartService(cartRepository, cartItemRepository, productRepository,
+            cartMapper, trendingService, cartStore, cartItemIdAllocator, userRepository);
+
+    private final User user = user();
+    private final Product mouse = product(1L, 19.99);
+    private final Product cable = product(2L, 2.35);
+
+    @BeforeEach
+    void databaseMode() {
+        ReflectionTestUtils.setField(cartService, "storageMode", CartStorageMode.DATABASE);
+    }
+
+    @Test
+    void readMapsTheCartLoadedWithItsProducts() {
+        Cart cart = cart(line(10L, mouse, 1), line(11L, cable, 4));
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(cart));
+
+        cartService.getOrCreateCart(user);
+
+        verify(cartMapper).toDto(cart);
+        verifyNoInteractions(cartItemRepository, productRepository);
+    }
+
+    @Test
+    void quantityChangeIsOneRelativeUpdateAndReturnsTheReloadedCart() {
+        Cart reloaded = cart(line(10L, mouse, 1), line(11L, cable, 2));
+        when(cartItemRepository.setQuantityInUserCart(eq(user.getId()), eq(11L), eq(2), any())).thenReturn(1);
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(reloaded));
+
+        cartService.updateCartItemQuantity(user, 11L, quantity(2));
+
+        verify(cartItemRepository).setQuantityInUserCart(eq(user.getId()), eq(11L), eq(2), any());
+        verify(cartMapper).toDto(reloaded);
+        verify(cartRepository, never()).save(any());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void removalIsOneRelativeUpdateAndReturnsTheReloadedCart() {
+        Cart reloaded = cart(line(11L, cable, 4));
+        when(cartItemRepository.deleteFromUserCart(eq(user.getId()), eq(10L), any())).thenReturn(1);
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(reloaded));
+
+        cartService.removeItemFromCart(user, 10L);
+
+        verify(cartItemRepository).deleteFromUserCart(eq(user.getId()), eq(10L), any());
+        verify(cartItemRepository, never()).findById(any());
+        verify(cartMapper).toDto(reloaded);
+        verify(cartRepository, never()).save(any());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void cartWithoutSummaryIsRecountedWhenLoaded() {
+        Cart cart = cart(line(10L, mouse, 2));
+        cart.setLineCount(null);
+        cart.setTotalQuantity(null);
+        cart.setSubtotalCents(null);
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(cart));
+
+        cartService.getOrCreateCart(user);
+
+        assertMatchesRecount(cart, 1, 2, 2 * 1999);
+    }
+
+    @Test
+    void itemOfAnotherCartIsNotFoundAndNothingChanges() {
+        // The statements match no line outside the user's own cart
+        assertThatThrownBy(() -> cartService.removeItemFromCart(user, 99L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart item not found");
+        assertThatThrownBy(() -> cartService.updateCartItemQuantity(user, 99L, quantity(3)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart item not found");
+        verify(cartRepository, never()).findWithItemsByUserId(any());
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    void quantityChangesRacingAddsKeepTheSummaryEqualToTheItems() throws Exception {
+        raceAddsAgainst(mice -> cartService.updateCartItemQuantity(user, 10L, quantity(mice)));
+    }
+
+    @Test
+    void batchQuantityChangesRacingAddsKeepTheSummaryEqualToTheItems() throws Exception {
+        raceAddsAgainst(mice -> cartService.applyItemOperations(user, List.of(
+                new CartItemOperation(CartOperationType.SET_QUANTITY, null, 1L, mice))));
+    }
+
+    @Test
+    void summaryIsReadFromTheDenormalizedColumns() {
+        when(cartRepository.findSummaryByUserEmail("a@example.com")).thenReturn(Optional.of(new CartSummaryDto(2, 3, 4469L)));
+
+        assertThat(cartService.getCartSummary("a@example.com")).isEqualTo(new CartSummaryDto(2, 3, 4469L));
+        verify(cartRepository, never()).findWithItemsByUserEmail(any());
+    }
+
+    @Test
+    void summaryFallsBackToTheItemsUntilBackfilled() {
+        Cart cart = cart(line(10L, mouse, 2));
+        when(cartRepository.findSummaryByUserEmail("a@example.com"))
+                .thenReturn(Optional.of(new CartSummaryDto(null, null, null)));
+        when(cartRepository.findWithItemsByUserEmail("a@example.com")).thenReturn(Optional.of(cart));
+        when(cartMapper.toSummaryDto(cart)).thenAnswer(invocation ->
+                new CartSummaryDto(cart.getLineCount(), cart.getTotalQuantity(), cart.getSubtotalCents()));
+
+        assertThat(cartService.getCartSummary("a@example.com")).isEqualTo(new CartSummaryDto(1, 2, 3998L));
+    }
+
+    @Test
+    void summaryIsZeroWithoutACart() {
+        when(cartRepository.findSummaryByUserEmail("a@example.com")).thenReturn(Optional.empty());
+        when(cartRepository.findWithItemsByUserEmail("a@example.com")).thenReturn(Optional.empty());
+
+        assertThat(cartService.getCartSummary("a@example.com")).isEqualTo(new CartSummaryDto(0, 0, 0L));
+    }
+
+    @Test
+    void addIsOneUpsertIntoTheExistingCart() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(mouse));
+        when(cartItemIdAllocator.nextId()).thenReturn(100L);
+        when(cartItemRepository.upsertIntoUserCart(eq(user.getId()), eq(100L), eq(1L), eq(2), eq(19.99), any()))
+                .thenReturn(1);
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(cart()));
+
+        cartService.addItemToCart(user, new AddItemToCartRequest(1L, 2));
+
+        verify(cartRepository, never()).insertIfAbsent(any(), any(), any());
+        verify(cartItemRepository, never()).save(any());
+        verify(trendingService).recordCartAdd(1L);
+    }
+
+    @Test
+    void firstAddCreatesTheCartAndUpsertsAgain() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(mouse));
+        when(cartItemRepository.upsertIntoUserCart(any(), any(), any(), anyInt(), anyDouble(), any()))
+                .thenReturn(0, 1);
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(cart()));
+
+        cartService.addItemToCart(user, new AddItemToCartRequest(1L, 2));
+
+        verify(cartRepository).insertIfAbsent(any(), eq(user.getId()), any());
+        verify(cartItemRepository, times(2)).upsertIntoUserCart(any(), any(), any(), anyInt(), anyDouble(), any());
+    }
+
+    @Test
+    void concurrentAddsAddUpInOneCartAndLine() throws Exception {
+        // Stand-in for the database: the two ON CONFLICT statements, each atomic
+        AtomicInteger cartsCreated = new AtomicInteger();
+        Map<Long, Integer> quantities = new ConcurrentHashMap<>();
+        AtomicBoolean cartExists = new AtomicBoolean();
+        when(productRepository.findById(1L)).thenReturn(Optional.of(mouse));
+        when(cartRepository.insertIfAbsent(any(), any(), any())).thenAnswer(invocation -> {
+            if (cartExists.compareAndSet(false, true)) {
+                cartsCreated.incrementAndGet();
+                return 1;
+            }
+            return 0;
+        });
+        when(cartItemRepository.upsertIntoUserCart(any(), any(), any(), anyInt(), anyDouble(), any())).thenAnswer(invocation -> {
+            if (!cartExists.get()) {
+                return 0;
+            }
+            quantities.merge(invocation.getArgument(2), invocation.<Integer>getArgument(3), Integer::sum);
+            return 1;
+        });
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(cart()));
+
+        int requests = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cartService.addItemToCart(user, new AddItemToCartRequest(1L, 1));
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(cartsCreated).hasValue(1);
+        assertThat(quantities).containsExactly(Map.entry(1L, requests));
+    }
+
+    @Test
+    void batchAddsGoThroughTheUpsertAndTheCartIsReloadedBeforeLaterOperations() {
+        Cart before = cart(line(10L, mouse, 1));
+        Cart afterAdds = cart(line(10L, mouse, 3), line(11L, cable, 1));
+        Cart afterAll = cart(line(10L, mouse, 3), line(11L, cable, 4));
+        when(cartRepository.findWithItemsByUserId(user.getId()))
+                .thenReturn(Optional.of(before), Optional.of(afterAdds), Optional.of(afterAll));
+        when(productRepository.findAllById(any())).thenReturn(List.of(mouse, cable));
+        when(cartItemIdAllocator.nextId()).thenReturn(100L, 101L);
+        when(cartItemRepository.upsertIntoUserCart(any(), any(), any(), anyInt(), anyDouble(), any())).thenReturn(1);
+        when(cartItemRepository.setQuantityInUserCart(any(), any(), anyInt(), any())).thenReturn(1);
+
+        cartService.applyItemOperations(user, List.of(
+                new CartItemOperation(CartOperationType.ADD, null, 1L, 2),
+                new CartItemOperation(CartOperationType.ADD, null, 2L, 1),
+                new CartItemOperation(CartOperationType.SET_QUANTITY, null, 2L, 4)));
+
+        InOrder order = inOrder(cartItemRepository, cartRepository);
+        order.verify(cartRepository).findWithItemsByUserId(user.getId());
+        order.verify(cartItemRepository).upsertIntoUserCart(eq(user.getId()), eq(100L), eq(1L), eq(2), eq(19.99), any());
+        order.verify(cartItemRepository).upsertIntoUserCart(eq(user.getId()), eq(101L), eq(2L), eq(1), eq(2.35), any());
+        order.verify(cartRepository).findWithItemsByUserId(user.getId());
+        order.verify(cartItemRepository).setQuantityInUserCart(eq(user.getId()), eq(11L), eq(4), any());
+        order.verify(cartRepository).findWithItemsByUserId(user.getId());
+        verify(cartMapper).toDto(afterAll);
+        verify(cartRepository, never()).save(any());
+        verify(trendingService).recordCartAdd(1L);
+        verify(trendingService).recordCartAdd(2L);
+    }
+
+    @Test
+    void batchEndingWithAddsReturnsTheReloadedCart() {
+        Cart before = cart();
+        Cart afterAdds = cart(line(11L, cable, 1));
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(before), Optional.of(afterAdds));
+        when(productRepository.findAllById(any())).thenReturn(List.of(cable));
+        when(cartItemRepository.upsertIntoUserCart(any(), any(), any(), anyInt(), anyDouble(), any())).thenReturn(1);
+
+        cartService.applyItemOperations(user, List.of(new CartItemOperation(CartOperationType.ADD, null, 2L, 1)));
+
+        verify(cartMapper).toDto(afterAdds);
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    void batchWithAnUnknownProductChangesNothing() {
+        when(productRepository.findAllById(any())).thenReturn(List.of(mouse));
+
+        assertThatThrownBy(() -> cartService.applyItemOperations(user, List.of(
+                new CartItemOperation(CartOperationType.ADD, null, 1L, 1),
+                new CartItemOperation(CartOperationType.ADD, null, 9L, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product not found with ID: 9");
+        verify(cartItemRepository, never()).upsertIntoUserCart(any(), any(), any(), anyInt(), anyDouble(), any());
+    }
+
+    @Test
+    void batchRemovalIsOneRelativeUpdateAndTheLineIsGoneForLaterOperations() {
+        Cart cart = cart(line(10L, mouse, 2), line(11L, cable, 4));
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(cart));
+        when(cartItemRepository.deleteFromUserCart(any(), any(), any())).thenReturn(1);
+
+        assertThatThrownBy(() -> cartService.applyItemOperations(user, List.of(
+                new CartItemOperation(CartOperationType.REMOVE, null, 1L, null),
+                new CartItemOperation(CartOperationType.SET_QUANTITY, null, 1L, 3))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart item not found");
+        verify(cartItemRepository).deleteFromUserCart(eq(user.getId()), eq(10L), any());
+        verify(cartItemRepository, never()).setQuantityInUserCart(any(), any(), anyInt(), any());
+    }
+
+    /**
+     * Half the requests add cables through the upsert while the other half set the mice,
+     * then the stored summary must still match the stored items
+     */
+    private void raceAddsAgainst(IntConsumer setMice) throws Exception {
+        CartRows rows = new CartRows();
+        when(productRepository.findById(2L)).thenReturn(Optional.of(cable));
+        when(cartItemRepository.upsertIntoUserCart(any(), any(), eq(2L), anyInt(), anyDouble(), any()))
+                .thenAnswer(invocation -> rows.addCables(invocation.getArgument(3)));
+        when(cartItemRepository.setQuantityInUserCart(any(), eq(10L), anyInt(), any()))
+                .thenAnswer(invocation -> rows.setMice(invocation.getArgument(2)));
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenAnswer(invocation -> Optional.of(rows.load()));
+        when(cartRepository.save(any(Cart.class))).thenAnswer(invocation -> rows.save(invocation.getArgument(0)));
+
+        int requests = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                int mice = i % 4 + 1;
+                boolean add = i % 2 == 0;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int repeat = 0; repeat < 20; repeat++) {
+                        if (add) {
+                            cartService.addItemToCart(user, new AddItemToCartRequest(2L, 1));
+                        } else {
+                            setMice.accept(mice);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Cart stored = rows.load();
+        int mice = stored.getCartItems().get(0).getQuantity();
+        int cables = stored.getCartItems().get(1).getQuantity();
+        assertThat(cables).isEqualTo(1 + requests / 2 * 20);
+        assertMatchesRecount(stored, 2, mice + cables, 1999L * mice + 235L * cables);
+    }
+
+    /**
+     * The carts and cart_items rows of a cart holding mice (line 10) and cables (line 11).
+     * Each method is atomic, like the statement it stands for; save writes what an entity
+     * save would, the summary and the changed line as they were loaded and modified.
+     */
+    private final class CartRows {
+
+        private int mice = 1;
+        private int cables = 1;
+        private int lineCount = 2;
+        private int totalQuantity = 2;
+        private long subtotalCents = 1999 + 235;
+
+        synchronized int addCables(int quantity) {
+            cables += quantity;
+            totalQuantity += quantity;
+            subtotalCents += 235L * quantity;
+            return 1;
+        }
+
+        synchronized int setMice(int quantity) {
+            int delta = quantity - mice;
+            mice = quantity;
+            totalQuantity += delta;
+            subtotalCents += 1999L * delta;
+            return 1;
+        }
+
+        synchronized Cart load() {
+            Cart cart = cart(line(10L, mouse, mice), line(11L, cable, cables));
+            cart.setLineCount(lineCount);
+            cart.setTotalQuantity(totalQuantity);
+            cart.setSubtotalCents(subtotalCents);
+            return cart;
+        }
+
+        synchronized Cart save(Cart cart) {
+            mice = cart.getCartItems().get(0).getQuantity();
+            lineCount = cart.getLineCount();
+            totalQuantity = cart.getTotalQuantity();
+            subtotalCents = cart.getSubtotalCents();
+            return cart;
+        }
+    }
+
+    private static void assertMatchesRecount(Cart cart, int lineCount, int totalQuantity, long subtotalCents) {
+        Cart recounted = new Cart();
+        recounted.setCartItems(cart.getCartItems());
+        recounted.recomputeSummary();
+
+        assertThat(cart.getLineCount()).isEqualTo(recounted.getLineCount()).isEqualTo(lineCount);
+        assertThat(cart.getTotalQuantity()).isEqualTo(recounted.getTotalQuantity()).isEqualTo(totalQuantity);
+        assertThat(cart.getSubtotalCents()).isEqualTo(recounted.getSubtotalCents()).isEqualTo(subtotalCents);
+    }
+
+    private Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setId(UUID.randomUUID());
+        cart.setUser(user);
+        cart.setCreatedAt(LocalDateTime.now());
+        cart.setCartItems(new ArrayList<>(List.of(items)));
+        for (CartItem item : items) {
+            item.setCart(cart);
+        }
+        cart.recomputeSummary();
+        return cart;
+    }
+
+    private static CartItem line(Long id, Product product, int quantity) {
+        return CartItem.builder().id(id).product(product).quantity(quantity).price(product.getPrice()).build();
+    }
+
+    private static Product product(Long id, double price) {
+        return Product.builder().id(id).name("Product " + id).price(price).stock(100).build();
+    }
+
+    private static UpdateCartItemRequest quantity(int quantity) {
+        UpdateCartItemRequest request = new UpdateCartItemRequest();
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("a@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,103 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.dtos.CategoryResponseDto;
+import com.capstone.shoppingcart.entities.Category;
+import com.capstone.shoppingcart.mappers.CategoryMapperImpl;
+import com.capstone.shoppingcart.repositories.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategorySnapshotTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService(mock(PromotionSchedule.class));
+    private final CategorySnapshot snapshot =
+            new CategorySnapshot(categoryRepository, new CategoryMapperImpl(), catalogVersionService);
+
+    @BeforeEach
+    void loadInitialSnapshot() {
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Electronics"), category(2L, "Books")));
+        snapshot.refresh();
+    }
+
+    @Test
+    void readsAreServedFromMemory() {
+        assertThat(snapshot.all()).extracting(CategoryResponseDto::getName).containsExactly("Electronics", "Books");
+        assertThat(snapshot.find(1L)).hasValueSatisfying(category -> assertThat(category.getName()).isEqualTo("Electronics"));
+        assertThat(snapshot.find(3L)).isEmpty();
+        assertThat(snapshot.exists(2L)).isTrue();
+        assertThat(snapshot.exists(3L)).isFalse();
+        assertThat(snapshot.exists(null)).isFalse();
+        assertThat(snapshot.findIdByName(" electronics ")).contains(1L);
+        assertThat(snapshot.findIdByName("Toys")).isEmpty();
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void snapshotIsBuiltOnFirstUseBeforeStartupCompletes() {
+        CategorySnapshot beforeStartup =
+                new CategorySnapshot(categoryRepository, new CategoryMapperImpl(), catalogVersionService);
+
+        assertThat(beforeStartup.exists(1L)).isTrue();
+        assertThat(beforeStartup.all()).hasSize(2);
+        // Once for the snapshot loaded before each test, once for this one
+        verify(categoryRepository, times(2)).findAll();
+    }
+
+    @Test
+    void unchangedRefreshKeepsTheETags() {
+        String catalog = catalogVersionService.catalogETag();
+        String books = catalogVersionService.categoryETag(2L);
+
+        snapshot.refresh();
+
+        assertThat(catalogVersionService.catalogETag()).isEqualTo(catalog);
+        assertThat(catalogVersionService.categoryETag(2L)).isEqualTo(books);
+    }
+
+    @Test
+    void editedCategoryBumpsItsETagAndTheCatalogs() {
+        String catalog = catalogVersionService.catalogETag();
+        String electronics = catalogVersionService.categoryETag(1L);
+        String books = catalogVersionService.categoryETag(2L);
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Electronics"), category(2L, "Novels")));
+
+        snapshot.refresh();
+
+        assertThat(snapshot.find(2L)).hasValueSatisfying(category -> assertThat(category.getName()).isEqualTo("Novels"));
+        assertThat(catalogVersionService.catalogETag()).isNotEqualTo(catalog);
+        assertThat(catalogVersionService.categoryETag(2L)).isNotEqualTo(books);
+        assertThat(catalogVersionService.categoryETag(1L)).isEqualTo(electronics);
+    }
+
+    @Test
+    void addedAndRemovedCategoriesBumpTheirETags() {
+        String electronics = catalogVersionService.categoryETag(1L);
+        String books = catalogVersionService.categoryETag(2L);
+        String toys = catalogVersionService.categoryETag(3L);
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Electronics"), category(3L, "Toys")));
+
+        snapshot.refresh();
+
+        assertThat(snapshot.exists(2L)).isFalse();
+        assertThat(snapshot.findIdByName(" toys ")).contains(3L);
+        assertThat(catalogVersionService.categoryETag(2L)).isNotEqualTo(books);
+        assertThat(catalogVersionService.categoryETag(3L)).isNotEqualTo(toys);
+        assertThat(catalogVersionService.categoryETag(1L)).isEqualTo(electronics);
+    }
+
+    private static Category category(Long id, String name) {
+        return new Category(id, name, name + " description", CREATED_AT, List.of());
+    }
+}
@@ -0,0 +1,94 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.config.CacheConfig;
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.mappers.ProductMapper;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.services.recommendation.CartCooccurrenceRecommender;
+import com.capstone.shoppingcart.services.recommendation.WishlistSimilarityRecommender;
+import com.capstone.shoppingcart.services.search.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs ProductService behind the Spring cache proxy configured by CacheConfig
+ */
+@SpringJUnitConfig({CacheConfig.class, ProductService.class, ProductCacheTest.Conversion.class})
+class ProductCacheTest {
+
+    // Boot's conversions, so the "10m" TTL default binds as it does in the application
+    @Configuration
+    static class Conversion {
+        @Bean
+        static ConversionService conversionService() {
+            return new ApplicationConversionService();
+        }
+    }
+
+    @MockitoBean
+    private ProductRepository productRepository;
+    @MockitoBean
+    private ProductMapper productMapper;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private ProductCountEstimator productCountEstimator;
+    @MockitoBean
+    private CartCooccurrenceRecommender cartCooccurrenceRecommender;
+    @MockitoBean
+    private WishlistSimilarityRecommender wishlistSimilarityRecommender;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        when(productRepository.findDtoById(1L)).thenReturn(Optional.of(product(1L, "Mouse")));
+
+        productService.getProductById(1L);
+        productService.getProductById(1L);
+
+        verify(productRepository, times(1)).findDtoById(1L);
+    }
+
+    @Test
+    void unknownIdsAreNotCached() {
+        when(productRepository.findDtoById(2L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> productService.getProductById(2L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.getProductById(2L)).isInstanceOf(IllegalArgumentException.class);
+
+        verify(productRepository, times(2)).findDtoById(2L);
+    }
+
+    @Test
+    void adminChangeMakesTheNextLookupReadTheNewRow() {
+        when(productRepository.findDtoById(3L))
+                .thenReturn(Optional.of(product(3L, "Mouse")))
+                .thenReturn(Optional.of(product(3L, "Wireless Mouse")));
+        productService.getProductById(3L);
+
+        productService.onCatalogChanged(ProductCatalogChangedEvent.of(3L));
+
+        assertThat(productService.getProductById(3L).getName()).isEqualTo("Wireless Mouse");
+    }
+
+    private static ProductResponseDto product(Long id, String name) {
+        return ProductResponseDto.builder().id(id).name(name).build();
+    }
+}
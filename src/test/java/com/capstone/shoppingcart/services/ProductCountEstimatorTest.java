@@ -0,0 +1,93 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCountEstimatorTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductCountEstimator estimator = new ProductCountEstimator(productRepository);
+
+    @BeforeEach
+    void countCatalog() {
+        when(productRepository.countByCategory()).thenReturn(List.of(row(10L, 40), row(20L, 60)));
+        estimator.refresh();
+    }
+
+    @Test
+    void lastPageReportsTheExactTotal() {
+        Page<String> page = estimator.toPage(new SliceImpl<>(List.of("a", "b"), PageRequest.of(2, 5), false), null);
+
+        assertThat(page.getTotalElements()).isEqualTo(12);
+    }
+
+    @Test
+    void otherPagesUseTheCachedCount() {
+        assertThat(estimate(null)).isEqualTo(100);
+        assertThat(estimate(10L)).isEqualTo(40);
+        // Never fewer rows than the slice proved to exist
+        assertThat(estimate(30L)).isEqualTo(2);
+    }
+
+    @Test
+    void singleProductChangeRecountsOnlyItsCategories() {
+        when(productRepository.countByCategory(Set.of(10L, 30L))).thenReturn(List.of(row(10L, 39), row(30L, 5)));
+
+        estimator.onCatalogChanged(ProductCatalogChangedEvent.of(7L, 10L, 30L));
+
+        assertThat(estimate(10L)).isEqualTo(39);
+        assertThat(estimate(20L)).isEqualTo(60);
+        assertThat(estimate(30L)).isEqualTo(5);
+        assertThat(estimate(null)).isEqualTo(104);
+        verify(productRepository, times(1)).countByCategory();
+    }
+
+    @Test
+    void categoryWithoutProductsLeftDropsOutOfTheTotal() {
+        when(productRepository.countByCategory(Set.of(20L))).thenReturn(List.of());
+
+        estimator.onCatalogChanged(ProductCatalogChangedEvent.of(7L, 20L));
+
+        assertThat(estimate(null)).isEqualTo(40);
+        assertThat(estimate(20L)).isEqualTo(2);
+    }
+
+    @Test
+    void bulkChangeTriggersAFullRecount() {
+        when(productRepository.countByCategory()).thenReturn(List.of(row(10L, 500)));
+
+        estimator.onCatalogChanged(ProductCatalogChangedEvent.bulk(Set.of(10L)));
+
+        assertThat(estimate(null)).isEqualTo(500);
+        assertThat(estimate(20L)).isEqualTo(2);
+        verify(productRepository, never()).countByCategory(any());
+    }
+
+    // Total reported for a first page of one row that has more rows after it
+    private long estimate(Long categoryId) {
+        return estimator.toPage(new SliceImpl<>(List.of("a"), PageRequest.of(0, 1), true), categoryId).getTotalElements();
+    }
+
+    private static ProductRepository.CategoryCountView row(Long categoryId, long total) {
+        return new CountRow(categoryId, total);
+    }
+
+    private record CountRow(Long getCategoryId, Long getTotal) implements ProductRepository.CategoryCountView {
+    }
+}
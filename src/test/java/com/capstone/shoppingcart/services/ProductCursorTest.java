@@ -0,0 +1,76 @@
+package com.capstone.shoppingcart.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCursorTest {
+
+    @Test
+    void roundTripsEachSortKeyType() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 14, 15, 9, 26);
+
+        assertThat(ProductCursor.decode(ProductCursor.encode("price", false, 19.99, 42L), "price", false))
+                .isEqualTo(new ProductCursor.Position(19.99, 42L));
+        assertThat(ProductCursor.decode(ProductCursor.encode("createdAt", true, createdAt, 7L), "createdAt", true))
+                .isEqualTo(new ProductCursor.Position(createdAt, 7L));
+        assertThat(ProductCursor.decode(ProductCursor.encode("popularity", true, 300L, 1L), "popularity", true))
+                .isEqualTo(new ProductCursor.Position(300L, 1L));
+    }
+
+    @Test
+    void valueMayContainTheSeparator() {
+        String name = "Mouse\nPad, large";
+
+        assertThat(ProductCursor.decode(ProductCursor.encode("name", false, name, 3L), "name", false).value())
+                .isEqualTo(name);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        assertThat(ProductCursor.encode("name", false, "???>>>", 3L)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertThat(ProductCursor.decode(null, "price", false)).isNull();
+        assertThat(ProductCursor.decode(" ", "price", false)).isNull();
+    }
+
+    @Test
+    void cursorIsBoundToItsSort() {
+        String cursor = ProductCursor.encode("price", false, 19.99, 42L);
+
+        assertThatThrownBy(() -> ProductCursor.decode(cursor, "price", true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match the requested sort");
+        assertThatThrownBy(() -> ProductCursor.decode(cursor, "name", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor does not match the requested sort");
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThatThrownBy(() -> ProductCursor.decode("not base64!", "price", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> ProductCursor.decode(encodeRaw("v0\nprice\nasc\n1\n2.0"), "price", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> ProductCursor.decode(encodeRaw("v1\nprice\nasc\n1\ncheap"), "price", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> ProductCursor.decode(encodeRaw("v1\nprice\nasc"), "price", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
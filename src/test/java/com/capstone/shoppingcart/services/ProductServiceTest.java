@@ -0,0 +1,185 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.config.CacheConfig;
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.dtos.ProductSearchPage;
+import com.capstone.shoppingcart.enums.SearchMode;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.mappers.ProductMapperImpl;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.services.recommendation.CartCooccurrenceRecommender;
+import com.capstone.shoppingcart.services.recommendation.WishlistSimilarityRecommender;
+import com.capstone.shoppingcart.services.search.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex productSearchIndex = mock(ProductSearchIndex.class);
+    private final ProductCountEstimator productCountEstimator = mock(ProductCountEstimator.class);
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS);
+    private final ProductService productService = new ProductService(productRepository, new ProductMapperImpl(),
+            productSearchIndex, productCountEstimator, cacheManager, mock(CartCooccurrenceRecommender.class),
+            mock(WishlistSimilarityRecommender.class));
+
+    @Test
+    void fullTextSearchRequiresEveryWordAndPrefixMatchesTheLast() {
+        searchMode(SearchMode.FULL_TEXT);
+        when(productRepository.fullTextSearch(anyString(), any())).thenReturn(new PageImpl<>(List.of(row(1L))));
+
+        var result = productService.searchProducts("Wireless  mou", PageRequest.of(1, 5, Sort.by("price")));
+
+        assertThat(result.getContent()).extracting(ProductResponseDto::getId).containsExactly(1L);
+        // Ranked by ts_rank, so the requested sort is dropped
+        verify(productRepository).fullTextSearch("wireless & mou:*", PageRequest.of(1, 5));
+    }
+
+    @Test
+    void fullTextSearchWithinACategory() {
+        searchMode(SearchMode.FULL_TEXT);
+        when(productRepository.fullTextSearchByCategory(any(), anyString(), any()))
+                .thenReturn(new PageImpl<>(List.of(row(1L))));
+
+        productService.searchProductsByCategory(10L, "mouse", PageRequest.of(0, 5));
+
+        verify(productRepository).fullTextSearchByCategory(10L, "mouse:*", PageRequest.of(0, 5));
+    }
+
+    @Test
+    void nativeRowsMapToTheResponseDto() {
+        searchMode(SearchMode.FULL_TEXT);
+        when(productRepository.fullTextSearch(anyString(), any())).thenReturn(new PageImpl<>(List.of(row(1L))));
+
+        ProductResponseDto product = productService.searchProducts("product", PageRequest.of(0, 5)).getContent().get(0);
+
+        assertThat(product).isEqualTo(dto(1L));
+    }
+
+    @Test
+    void queryWithoutWordsMatchesNothing() {
+        searchMode(SearchMode.FULL_TEXT);
+
+        assertThat(productService.searchProducts(" -- ", PageRequest.of(0, 5)).getTotalElements()).isZero();
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void indexModeFallsBackToTheDatabaseUntilTheIndexIsBuilt() {
+        searchMode(SearchMode.INDEX);
+        when(productSearchIndex.isReady()).thenReturn(false);
+        when(productRepository.searchProducts(anyString(), any())).thenReturn(new PageImpl<>(List.of(dto(1L))));
+
+        productService.searchProducts("mouse", PageRequest.of(0, 5));
+
+        verify(productRepository).searchProducts("mouse", PageRequest.of(0, 5));
+    }
+
+    @Test
+    void databaseModeFallsBackToTrigramMatchesAndSuggestsTheClosestName() {
+        searchMode(SearchMode.DATABASE);
+        fuzzy();
+        when(productRepository.searchProducts(anyString(), any())).thenReturn(Page.empty());
+        when(productRepository.fuzzySearch("wireles mouse", 0.3, PageRequest.of(0, 5)))
+                .thenReturn(new PageImpl<>(List.of(row(1L))));
+
+        var result = productService.searchProducts("Wireles Mouse", PageRequest.of(0, 5));
+
+        assertThat(result).isInstanceOfSatisfying(ProductSearchPage.class,
+                searchPage -> assertThat(searchPage.getSuggestion()).isEqualTo("Product 1"));
+        assertThat(result.getContent()).extracting(ProductResponseDto::getId).containsExactly(1L);
+    }
+
+    @Test
+    void indexModeSuggestsTheCorrectedQuery() {
+        searchMode(SearchMode.INDEX);
+        fuzzy();
+        when(productSearchIndex.isReady()).thenReturn(true);
+        when(productSearchIndex.search("wireles", null, PageRequest.of(0, 5))).thenReturn(Page.empty());
+        when(productSearchIndex.correct("wireles", 0.3)).thenReturn("wireless");
+        when(productSearchIndex.search("wireless", null, PageRequest.of(0, 5))).thenReturn(new PageImpl<>(List.of(dto(1L))));
+
+        var result = productService.searchProducts("wireles", PageRequest.of(0, 5));
+
+        assertThat(result).isInstanceOfSatisfying(ProductSearchPage.class,
+                searchPage -> assertThat(searchPage.getSuggestion()).isEqualTo("wireless"));
+    }
+
+    @Test
+    void listingsReadTheDtoProjection() {
+        var slice = new SliceImpl<>(List.of(dto(1L)), PageRequest.of(0, 1), true);
+        when(productRepository.findDtoSliceByCategoryId(10L, PageRequest.of(0, 1))).thenReturn(slice);
+
+        productService.getProductsByCategory(10L, PageRequest.of(0, 1), false);
+
+        verify(productCountEstimator).toPage(slice, 10L);
+    }
+
+    @Test
+    void productDetailReadsTheDtoProjection() {
+        when(productRepository.findDtoById(1L)).thenReturn(Optional.of(dto(1L)));
+        when(productRepository.findDtoById(2L)).thenReturn(Optional.empty());
+
+        assertThat(productService.getProductById(1L)).isEqualTo(dto(1L));
+        assertThatThrownBy(() -> productService.getProductById(2L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product not found");
+    }
+
+    @Test
+    void changedProductsAreEvictedFromTheCache() {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        products.put(1L, dto(1L));
+        products.put(2L, dto(2L));
+
+        productService.onCatalogChanged(ProductCatalogChangedEvent.of(1L));
+
+        assertThat(products.get(1L)).isNull();
+        assertThat(products.get(2L)).isNotNull();
+    }
+
+    private void searchMode(SearchMode mode) {
+        ReflectionTestUtils.setField(productService, "searchMode", mode);
+    }
+
+    private void fuzzy() {
+        ReflectionTestUtils.setField(productService, "fuzzyEnabled", true);
+        ReflectionTestUtils.setField(productService, "fuzzyThreshold", 0.3);
+    }
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private static ProductResponseDto dto(Long id) {
+        return new ProductResponseDto(id, "Product " + id, "Description", 10.0, null, CREATED_AT, 10L, "Peripherals");
+    }
+
+    private static ProductRepository.ProductRow row(Long id) {
+        return new Row(id, "Product " + id, "Description", 10.0, null, CREATED_AT, 10L, "Peripherals");
+    }
+
+    private record Row(Long getId, String getName, String getDescription, Double getPrice, String getImageUrl,
+                       LocalDateTime getCreatedAt, Long getCategoryId, String getCategoryName)
+            implements ProductRepository.ProductRow {
+    }
+}
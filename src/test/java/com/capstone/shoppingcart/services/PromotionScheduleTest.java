@@ -0,0 +1,137 @@
+package com.capstone.shoppingcart.services;
+
+import com.capstone.shoppingcart.dtos.PromotionResponseDto;
+import com.capstone.shoppingcart.entities.Promotion;
+import com.capstone.shoppingcart.events.PromotionsChangedEvent;
+import com.capstone.shoppingcart.mappers.PromotionMapperImpl;
+import com.capstone.shoppingcart.repositories.PromotionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PromotionScheduleTest {
+
+    private final PromotionRepository promotionRepository = mock(PromotionRepository.class);
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final ScheduledFuture<?> scheduled = mock(ScheduledFuture.class);
+    private final PromotionSchedule schedule =
+            new PromotionSchedule(promotionRepository, new PromotionMapperImpl(), taskScheduler);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void stubScheduler() {
+        doReturn(scheduled).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void onlyPromotionsInsideTheirWindowAreActive() {
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1L, 2, true, now.minusDays(1), null),
+                promotion(2L, 1, true, null, now.plusDays(1)),
+                promotion(3L, 0, true, now.minusDays(2), now.minusDays(1)),
+                promotion(4L, 0, true, now.plusDays(1), null),
+                promotion(5L, 0, false, null, null)));
+
+        schedule.load();
+
+        assertThat(ids(schedule.activePromotions())).containsExactly(2L, 1L);
+        assertThat(schedule.findActive(4L)).isNull();
+    }
+
+    @Test
+    void nextTransitionIsScheduledAtTheNearestStartOrEnd() {
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1L, 0, true, now.plusHours(2), null),
+                promotion(2L, 0, true, now.minusHours(1), now.plusHours(1))));
+
+        schedule.load();
+
+        // A promotion stays active through its end time, so it drops out just after it
+        assertThat(scheduledAt()).isEqualTo(instant(now.plusHours(1).plusNanos(1)));
+    }
+
+    @Test
+    void transitionSwapsTheActiveListAndTheGeneration() throws InterruptedException {
+        LocalDateTime startAt = now.plusNanos(50_000_000);
+        when(promotionRepository.findAll()).thenReturn(List.of(
+                promotion(1L, 0, true, startAt, startAt.plusHours(1))));
+        schedule.load();
+        long generation = schedule.generation();
+        ArgumentCaptor<Runnable> transition = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).schedule(transition.capture(), any(Instant.class));
+        assertThat(schedule.activePromotions()).isEmpty();
+
+        Thread.sleep(100);
+        transition.getValue().run();
+
+        assertThat(ids(schedule.activePromotions())).containsExactly(1L);
+        assertThat(schedule.generation()).isEqualTo(generation + 1);
+        assertThat(scheduledAt()).isEqualTo(instant(startAt.plusHours(1).plusNanos(1)));
+    }
+
+    @Test
+    void adminChangeReloadsAndCancelsThePendingTransition() {
+        when(promotionRepository.findAll()).thenReturn(List.of(promotion(1L, 0, true, now.plusHours(1), null)));
+        schedule.load();
+        long generation = schedule.generation();
+
+        when(promotionRepository.findAll()).thenReturn(List.of(promotion(1L, 0, true, null, null)));
+        schedule.onPromotionsChanged(new PromotionsChangedEvent(1L));
+
+        verify(scheduled).cancel(false);
+        assertThat(ids(schedule.activePromotions())).containsExactly(1L);
+        assertThat(schedule.generation()).isGreaterThan(generation);
+    }
+
+    @Test
+    void noTransitionIsScheduledWhenNothingChangesLater() {
+        when(promotionRepository.findAll()).thenReturn(List.of(promotion(1L, 0, true, now.minusDays(1), null)));
+
+        schedule.load();
+
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    private Instant scheduledAt() {
+        ArgumentCaptor<Instant> at = ArgumentCaptor.forClass(Instant.class);
+        verify(taskScheduler, atLeastOnce()).schedule(any(Runnable.class), at.capture());
+        return at.getValue();
+    }
+
+    private static Instant instant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static List<Long> ids(List<PromotionResponseDto> promotions) {
+        return promotions.stream().map(PromotionResponseDto::getId).toList();
+    }
+
+    private Promotion promotion(Long id, int displayOrder, boolean active, LocalDateTime startAt, LocalDateTime endAt) {
+        return Promotion.builder()
+                .id(id)
+                .title("Promotion " + id)
+                .displayOrder(displayOrder)
+                .isActive(active)
+                .startAt(startAt)
+                .endAt(endAt)
+                .createdAt(now.minusDays(10).plusMinutes(id))
+                .build();
+    }
+}
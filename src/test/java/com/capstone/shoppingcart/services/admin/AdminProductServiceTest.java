@@ -0,0 +1,191 @@
+package com.capstone.shoppingcart.services.admin;
+
+import com.capstone.shoppingcart.dtos.BulkProductUpdateRequest;
+import com.capstone.shoppingcart.dtos.CategoryPriceRule;
+import com.capstone.shoppingcart.dtos.ProductUpdateItem;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.mappers.ProductMapper;
+import com.capstone.shoppingcart.repositories.CategoryRepository;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import com.capstone.shoppingcart.services.ProductCountEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AdminProductServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final AdminProductService service = new AdminProductService(mock(ProductRepository.class),
+            mock(CategoryRepository.class), mock(ProductMapper.class), eventPublisher,
+            mock(ProductCountEstimator.class), jdbcTemplate);
+
+    // RETURNING rows {product_id, category_id} of the "rules" and "items" statements
+    private final Map<String, List<long[]>> returning = new HashMap<>();
+    private final List<Statement> statements = new ArrayList<>();
+
+    @BeforeEach
+    void captureStatements() {
+        doAnswer(invocation -> {
+            Statement statement = new Statement();
+            PreparedStatementCreator creator = invocation.getArgument(0);
+            creator.createPreparedStatement(connection(statement));
+            statements.add(statement);
+
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long[] row : returning.getOrDefault(statement.sql.contains("AS r(") ? "rules" : "items", List.of())) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("product_id")).thenReturn(row[0]);
+                when(rs.getLong("category_id")).thenReturn(row[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void rulesRunBeforeItemsWithTypedArrays() {
+        returning.put("rules", List.of(new long[]{1, 10}, new long[]{2, 10}));
+        returning.put("items", List.of(new long[]{2, 10}, new long[]{3, 20}));
+
+        var result = service.bulkUpdate(request(
+                List.of(rule(10L, -10.0)),
+                List.of(item(2L, 9.99, null), item(3L, null, 5))));
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0).sql).contains("AS r(category_id, percent)");
+        assertThat(statements.get(0).arrays).containsExactly(
+                new BoundArray("bigint", new Object[]{10L}),
+                new BoundArray("float8", new Object[]{-10.0}));
+        assertThat(statements.get(1).sql).contains("AS v(product_id, price, stock)");
+        assertThat(statements.get(1).arrays).containsExactly(
+                new BoundArray("bigint", new Object[]{2L, 3L}),
+                new BoundArray("float8", new Object[]{9.99, null}),
+                new BoundArray("int", new Object[]{null, 5}));
+
+        // Product 2 was changed by both statements but counts once
+        assertThat(result.getUpdated()).isEqualTo(3);
+        verify(eventPublisher).publishEvent(new ProductCatalogChangedEvent(Set.of(1L, 2L, 3L), Set.of(10L, 20L), false));
+    }
+
+    @Test
+    void onlyTheNeededStatementsRun() {
+        returning.put("items", List.of(new long[]{3, 20}));
+
+        service.bulkUpdate(request(List.of(), List.of(item(3L, 1.0, null))));
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0).sql).contains("AS v(product_id, price, stock)");
+    }
+
+    @Test
+    void largeChangesArePublishedAsBulk() {
+        returning.put("rules", LongStream.rangeClosed(1, 1001).mapToObj(id -> new long[]{id, 10}).toList());
+
+        var result = service.bulkUpdate(request(List.of(rule(10L, 5.0)), List.of()));
+
+        assertThat(result.getUpdated()).isEqualTo(1001);
+        verify(eventPublisher).publishEvent(ProductCatalogChangedEvent.bulk(Set.of(10L)));
+    }
+
+    @Test
+    void nothingChangedPublishesNothing() {
+        var result = service.bulkUpdate(request(List.of(rule(99L, 5.0)), List.of()));
+
+        assertThat(result.getUpdated()).isZero();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void invalidRequestsAreRejectedBeforeAnyUpdate() {
+        assertThatThrownBy(() -> service.bulkUpdate(request(List.of(), List.of())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No rules or items to apply");
+        assertThatThrownBy(() -> service.bulkUpdate(request(List.of(rule(1L, 5.0), rule(1L, 6.0)), List.of())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Each category may appear in only one rule");
+        assertThatThrownBy(() -> service.bulkUpdate(request(List.of(), List.of(item(1L, 1.0, null), item(1L, null, 1)))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Each product may appear in only one item");
+        assertThatThrownBy(() -> service.bulkUpdate(request(List.of(), List.of(item(1L, null, null)))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Item for product 1 has no price or stock");
+
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    private static Connection connection(Statement statement) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            statement.sql = invocation.getArgument(0);
+            return ps;
+        });
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            statement.arrays.add(new BoundArray(invocation.getArgument(0), (Object[]) invocation.getArgument(1)));
+            return mock(Array.class);
+        });
+        return connection;
+    }
+
+    private static BulkProductUpdateRequest request(List<CategoryPriceRule> rules, List<ProductUpdateItem> items) {
+        BulkProductUpdateRequest request = new BulkProductUpdateRequest();
+        request.setRules(rules);
+        request.setItems(items);
+        return request;
+    }
+
+    private static CategoryPriceRule rule(Long categoryId, Double percent) {
+        CategoryPriceRule rule = new CategoryPriceRule();
+        rule.setCategoryId(categoryId);
+        rule.setPriceChangePercent(percent);
+        return rule;
+    }
+
+    private static ProductUpdateItem item(Long productId, Double price, Integer stock) {
+        ProductUpdateItem item = new ProductUpdateItem();
+        item.setProductId(productId);
+        item.setPrice(price);
+        item.setStock(stock);
+        return item;
+    }
+
+    private static final class Statement {
+        private String sql;
+        private final List<BoundArray> arrays = new ArrayList<>();
+    }
+
+    private record BoundArray(String type, List<Object> values) {
+
+        BoundArray(String type, Object[] values) {
+            this(type, Arrays.asList(values));
+        }
+    }
+}
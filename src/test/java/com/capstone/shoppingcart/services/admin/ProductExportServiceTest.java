@@ -0,0 +1,161 @@
+package com.capstone.shoppingcart.services.admin;
+
+import com.capstone.shoppingcart.enums.ProductFileFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductExportServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ProductExportService service =
+            new ProductExportService(jdbcTemplate, transactionManager, JsonMapper.builder().build());
+
+    // Products returned by the cursor, in order
+    private final List<String> names = new ArrayList<>();
+    // Statement the export prepared, captured when the cursor is opened
+    private PreparedStatement statement;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        ReflectionTestUtils.setField(service, "fetchSize", 2);
+
+        Connection connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        doAnswer(invocation -> {
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < names.size(); i++) {
+                handler.processRow(row(i + 1L, names.get(i)));
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void csvHasAHeaderAndQuotesFieldsWithSeparators() throws IOException {
+        names.addAll(List.of("Mouse", "Keyboard, \"mechanical\""));
+
+        assertThat(export(ProductFileFormat.CSV)).containsExactly(
+                "id,name,description,price,stock,imageUrl,categoryId,category,createdAt,updatedAt",
+                "1,Mouse,Description,9.5,3,,10,Peripherals,2024-01-02T03:04:05,",
+                "2,\"Keyboard, \"\"mechanical\"\"\",Description,9.5,3,,10,Peripherals,2024-01-02T03:04:05,");
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLine() throws IOException {
+        names.addAll(List.of("Mouse", "Keyboard"));
+
+        List<String> lines = export(ProductFileFormat.NDJSON);
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("{").contains("\"id\":1", "\"name\":\"Mouse\"", "\"category\":\"Peripherals\"");
+        assertThat(lines.get(1)).contains("\"id\":2", "\"name\":\"Keyboard\"");
+    }
+
+    @Test
+    void readsThroughAForwardOnlyCursorInAReadOnlyTransaction() throws Exception {
+        names.add("Mouse");
+
+        export(ProductFileFormat.NDJSON);
+
+        verify(statement).setFetchSize(2);
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void flushesOncePerFetchedBatch() throws IOException {
+        names.addAll(List.of("A", "B", "C", "D", "E"));
+        List<Integer> flushedRows = new ArrayList<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.write(b);
+            }
+
+            @Override
+            public void flush() {
+                flushedRows.add(lines(buffer).size());
+            }
+        };
+
+        service.export(output, ProductFileFormat.NDJSON);
+
+        // After rows 2 and 4, then once more at the end
+        assertThat(flushedRows).containsExactly(2, 4, 5);
+    }
+
+    @Test
+    void clientDisconnectSurfacesTheIOException() {
+        names.addAll(List.of("A", "B"));
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> service.export(broken, ProductFileFormat.NDJSON))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+    }
+
+    private List<String> export(ProductFileFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.export(output, format);
+        return lines(output);
+    }
+
+    private static List<String> lines(ByteArrayOutputStream output) {
+        String text = output.toString(StandardCharsets.UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+    }
+
+    private static ResultSet row(long id, String name) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("product_id")).thenReturn(id);
+        when(rs.getString("name")).thenReturn(name);
+        when(rs.getString("description")).thenReturn("Description");
+        when(rs.getDouble("price")).thenReturn(9.5);
+        when(rs.getInt("stock")).thenReturn(3);
+        when(rs.getLong("category_id")).thenReturn(10L);
+        when(rs.getString("category_name")).thenReturn("Peripherals");
+        when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(CREATED_AT));
+        return rs;
+    }
+}
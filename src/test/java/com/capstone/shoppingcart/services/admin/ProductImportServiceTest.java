@@ -0,0 +1,222 @@
+package com.capstone.shoppingcart.services.admin;
+
+import com.capstone.shoppingcart.dtos.ImportRowErrorDto;
+import com.capstone.shoppingcart.dtos.ProductImportResultDto;
+import com.capstone.shoppingcart.enums.ProductFileFormat;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.services.CategorySnapshot;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductImportServiceTest {
+
+    private static final String HEADER = "name,description,price,stock,category\n";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CategorySnapshot categorySnapshot = mock(CategorySnapshot.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ProductImportService service = new ProductImportService(jdbcTemplate, transactionTemplate,
+            categorySnapshot, Validation.buildDefaultValidatorFactory().getValidator(),
+            JsonMapper.builder().build(), eventPublisher);
+
+    // Names of the products in each batch insert, in order
+    private final List<List<String>> batches = new ArrayList<>();
+    // Product ids bound by every insert, in order
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(service, "chunkSize", 100);
+        ReflectionTestUtils.setField(service, "maxErrors", 100);
+
+        when(categorySnapshot.findIdByName(anyString())).thenReturn(Optional.empty());
+        when(categorySnapshot.findIdByName("Electronics")).thenReturn(Optional.of(10L));
+        when(categorySnapshot.exists(20L)).thenReturn(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(50L, 100L));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> insert(invocation.getArgument(1), invocation.getArgument(3)));
+    }
+
+    @Test
+    void invalidRowsAreSkippedAndReportedByLine() throws IOException {
+        ProductImportResultDto result = importCsv(HEADER +
+                "Mouse,Wireless mouse,19.99,5,Electronics\n" +
+                "Keyboard,Mechanical keyboard,cheap,5,Electronics\n" +
+                "Lamp,Desk lamp,10,5,Garden\n" +
+                "\"Pad\nlarge\",,5,5,Electronics\n" +
+                "Cable,USB cable,3\n" +
+                "Headset,Gaming headset,-1,2,Electronics\n");
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(5);
+        assertThat(result.getErrors()).extracting(ImportRowErrorDto::getLine, ImportRowErrorDto::getMessage)
+                .containsExactly(
+                        tuple(3L, "Invalid price: cheap"),
+                        tuple(4L, "Category not found: Garden"),
+                        tuple(5L, "Description is required"),
+                        tuple(7L, "Expected 5 columns, found 3"),
+                        tuple(8L, "Price must be positive"));
+        assertThat(result.isErrorsTruncated()).isFalse();
+        assertThat(batches).containsExactly(List.of("Mouse"));
+    }
+
+    @Test
+    void malformedNdjsonLinesAreReported() throws IOException {
+        ProductImportResultDto result = service.importProducts(stream(
+                "{\"name\":\"Mouse\",\"description\":\"Wireless\",\"price\":19.99,\"stock\":5,\"categoryId\":20}\n" +
+                "{\"name\":\"Broken\"\n" +
+                "\n" +
+                "[1,2]\n" +
+                "{\"name\":{\"nested\":true}}\n"), ProductFileFormat.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(ImportRowErrorDto::getLine).containsExactly(2L, 4L, 5L);
+        assertThat(result.getErrors().get(0).getMessage()).startsWith("Invalid JSON");
+        assertThat(result.getErrors().get(1).getMessage()).isEqualTo("Expected a JSON object");
+        assertThat(result.getErrors().get(2).getMessage()).isEqualTo("Field 'name' must be a string or number");
+    }
+
+    @Test
+    void rowsRejectedByTheDatabaseAreFoundByRetryingOneByOne() throws IOException {
+        ProductImportResultDto result = importCsv(HEADER +
+                "Mouse,Wireless mouse,19.99,5,Electronics\n" +
+                "Rejected,Violates a constraint,1,1,Electronics\n" +
+                "Headset,Gaming headset,49,2,Electronics\n");
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(ImportRowErrorDto::getLine, ImportRowErrorDto::getMessage)
+                .containsExactly(tuple(3L, "check constraint violated"));
+        assertThat(batches).containsExactly(
+                List.of("Mouse", "Rejected", "Headset"), List.of("Mouse"), List.of("Rejected"), List.of("Headset"));
+        // Retries reuse the ids reserved for the chunk
+        assertThat(ids).containsExactly(1L, 2L, 3L, 1L, 2L, 3L);
+    }
+
+    @Test
+    void idsAreReservedFromTheProductSequenceInBlocks() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= 60; i++) {
+            csv.append("Product ").append(i).append(",Description,1,1,Electronics\n");
+        }
+        // Another instance took the block in between
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(50L, 250L));
+
+        importCsv(csv.toString());
+
+        // 60 rows need two blocks of 50; each sequence value ends its block
+        assertThat(ids).hasSize(60).startsWith(1L, 2L).contains(50L, 201L).endsWith(210L).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void errorListIsCappedButFailuresAreCounted() throws IOException {
+        ReflectionTestUtils.setField(service, "maxErrors", 2);
+
+        ProductImportResultDto result = importCsv(HEADER +
+                "A,a,x,1,Electronics\n" +
+                "B,b,x,1,Electronics\n" +
+                "C,c,x,1,Electronics\n");
+
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getErrors()).hasSize(2);
+        assertThat(result.isErrorsTruncated()).isTrue();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void importedProductsArePublishedAsOneBulkChange() throws IOException {
+        ReflectionTestUtils.setField(service, "chunkSize", 1);
+
+        importCsv("name,description,price,stock,categoryId\n" +
+                "Mouse,Wireless mouse,19.99,5,20\n" +
+                "Headset,Gaming headset,49,2,20\n");
+
+        assertThat(batches).hasSize(2);
+        verify(eventPublisher).publishEvent(ProductCatalogChangedEvent.bulk(Set.of(20L)));
+    }
+
+    @Test
+    void committedChunksArePublishedWhenTheUploadIsCutOff() {
+        ReflectionTestUtils.setField(service, "chunkSize", 1);
+        InputStream cutOff = new SequenceInputStream(
+                stream(HEADER + "Mouse,Wireless mouse,19.99,5,Electronics\nHeadset,Gaming"),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+
+        assertThatThrownBy(() -> service.importProducts(cutOff, ProductFileFormat.CSV))
+                .isInstanceOf(IOException.class);
+
+        assertThat(batches).containsExactly(List.of("Mouse"));
+        verify(eventPublisher).publishEvent(ProductCatalogChangedEvent.bulk(Set.of(10L)));
+    }
+
+    private ProductImportResultDto importCsv(String csv) throws IOException {
+        return service.importProducts(stream(csv), ProductFileFormat.CSV);
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Runs the statement setter against a mock and rejects any batch holding a product named "Rejected"
+    private <T> int[][] insert(Collection<T> rows, ParameterizedPreparedStatementSetter<T> setter) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (T row : rows) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(invocation -> names.add(invocation.getArgument(1))).when(ps).setString(eq(2), anyString());
+            doAnswer(invocation -> ids.add(invocation.getArgument(1))).when(ps).setLong(eq(1), anyLong());
+            setter.setValues(ps, row);
+        }
+        batches.add(names);
+        if (names.contains("Rejected")) {
+            throw new DataIntegrityViolationException("batch failed", new SQLException("check constraint violated"));
+        }
+        return new int[][]{new int[rows.size()]};
+    }
+}
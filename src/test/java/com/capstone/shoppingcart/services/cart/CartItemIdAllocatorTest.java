@@ -0,0 +1,76 @@
+package com.capstone.shoppingcart.services.cart;
+
+import com.capstone.shoppingcart.entities.CartItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartItemIdAllocatorTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private final CartItemIdAllocator allocator = new CartItemIdAllocator(jdbcTemplate);
+
+    // Like a pooled sequence: every nextval ends the next block of ID_ALLOCATION_SIZE ids
+    private void stubSequence() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenAnswer(invocation -> sequence.addAndGet(CartItem.ID_ALLOCATION_SIZE));
+    }
+
+    @Test
+    void idsAreHandedOutFromReservedBlocks() {
+        stubSequence();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < CartItem.ID_ALLOCATION_SIZE + 1; i++) {
+            ids.add(allocator.nextId());
+        }
+
+        assertThat(ids.get(0)).isEqualTo(1L);
+        assertThat(ids.get(ids.size() - 1)).isEqualTo(CartItem.ID_ALLOCATION_SIZE + 1L);
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws Exception {
+        stubSequence();
+        int threads = 8;
+        int idsPerThread = 500;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(allocator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(threads * idsPerThread);
+        verify(jdbcTemplate, times(threads * idsPerThread / CartItem.ID_ALLOCATION_SIZE))
+                .queryForObject(anyString(), eq(Long.class));
+    }
+}
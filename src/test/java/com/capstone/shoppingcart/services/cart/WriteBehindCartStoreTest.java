@@ -0,0 +1,298 @@
+package com.capstone.shoppingcart.services.cart;
+
+import com.capstone.shoppingcart.dtos.CartItemOperation;
+import com.capstone.shoppingcart.dtos.CartResponseDto;
+import com.capstone.shoppingcart.dtos.CartSummaryDto;
+import com.capstone.shoppingcart.entities.Cart;
+import com.capstone.shoppingcart.entities.CartItem;
+import com.capstone.shoppingcart.entities.Product;
+import com.capstone.shoppingcart.entities.User;
+import com.capstone.shoppingcart.enums.CartOperationType;
+import com.capstone.shoppingcart.repositories.CartRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class WriteBehindCartStoreTest {
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CartItemIdAllocator itemIdAllocator = mock(CartItemIdAllocator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // One shard, so every cart is written in the same batch
+    private final WriteBehindCartStore store =
+            new WriteBehindCartStore(cartRepository, jdbcTemplate, transactionTemplate, itemIdAllocator, meterRegistry, 1, 5000);
+
+    private final AtomicLong nextItemId = new AtomicLong(100);
+    // Statements committed so far, as {sql, rows}
+    private final List<Map.Entry<String, List<Object[]>>> committed = new ArrayList<>();
+    private final List<Map.Entry<String, List<Object[]>>> transaction = new ArrayList<>();
+
+    private final Product mouse = product(1L, 19.99);
+    private final Product cable = product(2L, 2.35);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "idleTtl", Duration.ofMinutes(30));
+        when(itemIdAllocator.nextId()).thenAnswer(invocation -> nextItemId.getAndIncrement());
+        when(cartRepository.findWithItemsByUserId(any())).thenReturn(Optional.empty());
+        databaseAvailable();
+    }
+
+    // Batches join the running transaction and are kept once it commits
+    private void databaseAvailable() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            transaction.add(Map.entry(invocation.getArgument(0), rows));
+            return new int[rows.size()];
+        });
+        doAnswer(invocation -> {
+            transaction.clear();
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            committed.addAll(transaction);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void changesAreWrittenOnlyByTheFlush() {
+        User user = user();
+        store.addItem(user, mouse, 1);
+        CartResponseDto cart = store.addItem(user, mouse, 2);
+
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(cart.getCartItems()).singleElement().satisfies(item -> assertThat(item.getQuantity()).isEqualTo(3));
+        assertThat(cart.getSummary()).isEqualTo(new CartSummaryDto(1, 3, 3 * 1999L));
+        assertThat(gauge("cart.store.dirty")).isEqualTo(1);
+
+        store.flush();
+
+        assertThat(rows("INSERT INTO carts")).singleElement()
+                .satisfies(row -> assertThat(row).containsSubsequence(cart.getId(), user.getId())
+                        .endsWith(1, 3, 3 * 1999L));
+        assertThat(rows("INSERT INTO cart_items")).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(100L, cart.getId(), 1L, 3, 19.99));
+        assertThat(gauge("cart.store.dirty")).isZero();
+        assertThat(meterRegistry.counter("cart.store.flushed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void cleanCartsAreNotWrittenAgain() {
+        store.addItem(user(), mouse, 1);
+        store.flush();
+        committed.clear();
+
+        store.flush();
+
+        assertThat(committed).isEmpty();
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+    }
+
+    @Test
+    void storedCartIsLoadedOnceAndRemovalsAreDeleted() {
+        User user = user();
+        Cart stored = storedCart(user, line(7L, mouse, 2), line(8L, cable, 1));
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(stored));
+
+        store.getCart(user);
+        CartResponseDto cart = store.removeItem(user, 7L);
+        store.flush();
+
+        verify(cartRepository, times(1)).findWithItemsByUserId(user.getId());
+        assertThat(cart.getSummary()).isEqualTo(new CartSummaryDto(1, 1, 235L));
+        assertThat(rows("DELETE FROM cart_items")).singleElement().satisfies(row -> assertThat(row).containsExactly(7L));
+        assertThat(rows("INSERT INTO cart_items")).isEmpty();
+        assertThat(rows("INSERT INTO carts")).singleElement().satisfies(row -> assertThat(row[0]).isEqualTo(stored.getId()));
+    }
+
+    @Test
+    void unreachableDatabaseKeepsCartsDirtyForTheNextFlush() {
+        store.addItem(user(), mouse, 1);
+        doAnswer(invocation -> {
+            throw new QueryTimeoutException("connection timed out");
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        store.flush();
+
+        assertThat(meterRegistry.counter("cart.store.flush.failures").count()).isEqualTo(1);
+        assertThat(gauge("cart.store.dirty")).isEqualTo(1);
+
+        databaseAvailable();
+        store.flush();
+
+        assertThat(rows("INSERT INTO cart_items")).hasSize(1);
+        assertThat(gauge("cart.store.dirty")).isZero();
+    }
+
+    @Test
+    void summaryAndQuantitiesAreWrittenAsTheChangeSinceTheLastFlush() {
+        User user = user();
+        Cart stored = storedCart(user, line(7L, mouse, 2), line(8L, cable, 1));
+        when(cartRepository.findWithItemsByUserId(user.getId())).thenReturn(Optional.of(stored));
+
+        store.addItem(user, mouse, 3);
+        store.flush();
+
+        // Added to what the database holds, so another writer's increment is not overwritten
+        assertThat(rows("INSERT INTO carts")).singleElement()
+                .satisfies(row -> assertThat(row).endsWith(0, 3, 3 * 1999L));
+        assertThat(rows("INSERT INTO cart_items")).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(7L, stored.getId(), 1L, 3, 19.99));
+
+        committed.clear();
+        store.updateQuantity(user, 7L, 1);
+        store.flush();
+
+        assertThat(rows("INSERT INTO carts")).singleElement()
+                .satisfies(row -> assertThat(row).endsWith(0, -4, -4 * 1999L));
+        assertThat(rows("INSERT INTO cart_items")).singleElement()
+                .satisfies(row -> assertThat(row[3]).isEqualTo(-4));
+    }
+
+    @Test
+    void changeMadeDuringAFlushIsWrittenOnceByTheNext() {
+        User user = user();
+        store.addItem(user, mouse, 1);
+        AtomicBoolean concurrentAdd = new AtomicBoolean(true);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            if (concurrentAdd.getAndSet(false)) {
+                store.addItem(user, mouse, 2);
+            }
+            List<Object[]> rows = invocation.getArgument(1);
+            transaction.add(Map.entry(invocation.getArgument(0), rows));
+            return new int[rows.size()];
+        });
+
+        store.flush();
+        assertThat(gauge("cart.store.dirty")).isEqualTo(1);
+        store.flush();
+
+        // The first flush wrote one unit, the second only the two added meanwhile
+        assertThat(rows("INSERT INTO cart_items")).extracting(row -> row[3]).containsExactly(1, 2);
+        assertThat(rows("INSERT INTO carts")).extracting(row -> row[5]).containsExactly(1, 2);
+        assertThat(gauge("cart.store.dirty")).isZero();
+    }
+
+    @Test
+    void rejectedCartIsDroppedWithoutLosingTheOthers() {
+        User accepted = user();
+        User rejected = user();
+        Product deleted = product(666L, 1.0);
+        store.addItem(accepted, mouse, 1);
+        store.addItem(rejected, deleted, 1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            if (rows.stream().anyMatch(row -> row.length == 5 && Long.valueOf(666L).equals(row[2]))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            transaction.add(Map.entry(invocation.getArgument(0), rows));
+            return new int[rows.size()];
+        });
+
+        store.flush();
+
+        assertThat(rows("INSERT INTO cart_items")).singleElement().satisfies(row -> assertThat(row[2]).isEqualTo(1L));
+        assertThat(meterRegistry.counter("cart.store.dropped").count()).isEqualTo(1);
+        assertThat(gauge("cart.store.carts")).isEqualTo(1);
+        assertThat(gauge("cart.store.dirty")).isZero();
+
+        // Next use starts again from what the database holds
+        assertThat(store.findSummary(rejected.getId())).isEmpty();
+        assertThat(store.getCart(rejected).getCartItems()).isEmpty();
+    }
+
+    @Test
+    void failingBatchLeavesTheCartUntouched() {
+        User user = user();
+        store.addItem(user, mouse, 2);
+
+        List<CartItemOperation> operations = List.of(
+                new CartItemOperation(CartOperationType.ADD, null, 2L, 1),
+                new CartItemOperation(CartOperationType.REMOVE, null, 1L, null),
+                new CartItemOperation(CartOperationType.SET_QUANTITY, null, 1L, 4));
+        assertThatThrownBy(() -> store.applyOperations(user, operations, Map.of(2L, cable)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cart item not found");
+
+        assertThat(store.findSummary(user.getId())).contains(new CartSummaryDto(1, 2, 2 * 1999L));
+    }
+
+    @Test
+    void batchAppliesInOrder() {
+        User user = user();
+        store.addItem(user, mouse, 2);
+
+        CartResponseDto cart = store.applyOperations(user, List.of(
+                new CartItemOperation(CartOperationType.ADD, null, 2L, 3),
+                new CartItemOperation(CartOperationType.SET_QUANTITY, null, 2L, 1),
+                new CartItemOperation(CartOperationType.REMOVE, 100L, null, null)), Map.of(2L, cable));
+
+        assertThat(cart.getCartItems()).singleElement().satisfies(item -> assertThat(item.getId()).isEqualTo(101L));
+        assertThat(cart.getSummary()).isEqualTo(new CartSummaryDto(1, 1, 235L));
+    }
+
+    private List<Object[]> rows(String statementPrefix) {
+        return committed.stream()
+                .filter(statement -> statement.getKey().startsWith(statementPrefix))
+                .flatMap(statement -> statement.getValue().stream())
+                .toList();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static Cart storedCart(User user, CartItem... items) {
+        Cart cart = new Cart();
+        cart.setId(UUID.randomUUID());
+        cart.setUser(user);
+        cart.setCreatedAt(LocalDateTime.now().minusDays(1));
+        cart.setCartItems(new ArrayList<>(List.of(items)));
+        cart.recomputeSummary();
+        return cart;
+    }
+
+    private static CartItem line(Long id, Product product, int quantity) {
+        return CartItem.builder().id(id).product(product).quantity(quantity).price(product.getPrice()).build();
+    }
+
+    private static Product product(Long id, double price) {
+        return Product.builder().id(id).name("Product " + id).price(price).build();
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+}
@@ -0,0 +1,70 @@
+package com.capstone.shoppingcart.services.recommendation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PairCountsTest {
+
+    @Test
+    void accumulatesDeltasPerOrderedPair() {
+        PairCounts counts = new PairCounts(4);
+        counts.add(1, 2, 1);
+        counts.add(1, 2, 2);
+        counts.add(2, 1, 1);
+
+        assertThat(collect(counts)).containsOnly(
+                Map.entry(List.of(1L, 2L), 3),
+                Map.entry(List.of(2L, 1L), 1));
+        assertThat(counts.size()).isEqualTo(2);
+    }
+
+    @Test
+    void pairsThatCancelOutAreSkipped() {
+        PairCounts counts = new PairCounts(4);
+        counts.add(1, 2, 1);
+        counts.add(1, 3, 1);
+        counts.add(1, 2, -1);
+
+        assertThat(collect(counts)).containsOnly(Map.entry(List.of(1L, 3L), 1));
+    }
+
+    @Test
+    void growsPastTheExpectedSizeWithoutLosingCounts() {
+        PairCounts counts = new PairCounts(1);
+        Map<List<Long>, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long row = random.nextInt(200);
+            long column = random.nextInt(200);
+            int delta = random.nextInt(5) + 1;
+            counts.add(row, column, delta);
+            expected.merge(List.of(row, column), delta, Integer::sum);
+        }
+
+        assertThat(collect(counts)).isEqualTo(expected);
+        assertThat(counts.size()).isEqualTo(expected.size());
+    }
+
+    @Test
+    void negativeAndLargeIdsAreKeys() {
+        PairCounts counts = new PairCounts(2);
+        counts.add(Long.MAX_VALUE, -1, 4);
+        counts.add(-1, Long.MAX_VALUE, 5);
+
+        assertThat(collect(counts)).containsOnly(
+                Map.entry(List.of(Long.MAX_VALUE, -1L), 4),
+                Map.entry(List.of(-1L, Long.MAX_VALUE), 5));
+    }
+
+    private static Map<List<Long>, Integer> collect(PairCounts counts) {
+        Map<List<Long>, Integer> pairs = new HashMap<>();
+        counts.forEach((row, column, count) -> pairs.put(List.of(row, column), count));
+        return pairs;
+    }
+}
@@ -0,0 +1,217 @@
+package com.capstone.shoppingcart.services.recommendation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WishlistSimilarityRecommenderTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 5, 1, 10, 0);
+
+    private static final UUID WISH_LIST_1 = UUID.randomUUID();
+    private static final UUID WISH_LIST_2 = UUID.randomUUID();
+    private static final UUID WISH_LIST_3 = UUID.randomUUID();
+    private static final UUID WISH_LIST_4 = UUID.randomUUID();
+
+    private final FakeJdbcTemplate jdbcTemplate = new FakeJdbcTemplate();
+    private final WishlistSimilarityRecommender recommender = new WishlistSimilarityRecommender(jdbcTemplate, 2);
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(recommender, "topK", 10);
+        ReflectionTestUtils.setField(recommender, "minSupport", 1);
+        ReflectionTestUtils.setField(recommender, "watermarkLag", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(recommender, "tombstoneRetention", Duration.ofDays(1));
+
+        jdbcTemplate.put(WISH_LIST_1, T0, 1, 2, 3);
+        jdbcTemplate.put(WISH_LIST_2, T0, 1, 2);
+        jdbcTemplate.put(WISH_LIST_3, T0, 1, 4);
+        recommender.load();
+    }
+
+    @AfterEach
+    void shutdown() {
+        recommender.shutdown();
+    }
+
+    @Test
+    void neighboursAreRankedByJaccardSimilarity() {
+        // 1 and 2 share 2 of 3 wish lists; 3 and 4 share 1 of 3 with product 1 (ties by id)
+        assertThat(recommender.similarProductIds(1L)).containsExactly(2, 3, 4);
+        assertThat(recommender.similarProductIds(2L)).containsExactly(1, 3);
+        assertThat(recommender.similarProductIds(4L)).containsExactly(1);
+    }
+
+    @Test
+    void pairsBelowMinimumSupportAreDropped() {
+        ReflectionTestUtils.setField(recommender, "minSupport", 2);
+        jdbcTemplate.put(WISH_LIST_1, T0.plusMinutes(1), 1, 2, 3, 5);
+
+        recommender.refresh();
+
+        assertThat(recommender.similarProductIds(1L)).containsExactly(2);
+        assertThat(recommender.similarProductIds(5L)).isEmpty();
+    }
+
+    @Test
+    void changedWishListUpdatesOnlyWhatItTouches() {
+        jdbcTemplate.put(WISH_LIST_3, T0.plusMinutes(1), 1, 2);
+
+        recommender.refresh();
+
+        assertThat(recommender.similarProductIds(1L)).containsExactly(2, 3);
+        assertThat(recommender.similarProductIds(2L)).containsExactly(1, 3);
+        assertThat(recommender.similarProductIds(4L)).isEmpty();
+    }
+
+    @Test
+    void deletedWishListIsRemovedFromTheScores() {
+        jdbcTemplate.delete(WISH_LIST_1, T0.plusMinutes(1));
+
+        recommender.refresh();
+
+        assertThat(recommender.similarProductIds(3L)).isEmpty();
+        assertThat(recommender.similarProductIds(1L)).containsExactly(2, 4);
+        assertThat(recommender.similarProductIds(2L)).containsExactly(1);
+    }
+
+    @Test
+    void deletionsAreReadFromTheTombstonesSinceTheLastRun() {
+        jdbcTemplate.delete(WISH_LIST_1, T0.plusMinutes(1));
+        recommender.refresh();
+        // Committed late, stamped behind the tombstone already read
+        jdbcTemplate.delete(WISH_LIST_2, T0.minusMinutes(2));
+
+        recommender.refresh();
+
+        assertThat(recommender.similarProductIds(1L)).containsExactly(4);
+        assertThat(recommender.similarProductIds(2L)).isEmpty();
+        assertThat(jdbcTemplate.tombstoneQueries).last().isEqualTo(Timestamp.valueOf(T0.minusMinutes(4)));
+    }
+
+    @Test
+    void tombstonesOlderThanTheRetentionAreDeleted() {
+        jdbcTemplate.delete(WISH_LIST_3, T0.plusHours(1));
+
+        recommender.refresh();
+
+        assertThat(jdbcTemplate.prunedBefore).isEqualTo(Timestamp.valueOf(T0.plusHours(1).minusDays(1)));
+        assertThat(recommender.similarProductIds(4L)).isEmpty();
+    }
+
+    @Test
+    void lateCommitBehindTheWatermarkIsStillRead() {
+        // Stamped before the newest row already read, but committed (visible) only now
+        jdbcTemplate.put(WISH_LIST_4, T0.minusMinutes(2), 3, 4);
+
+        recommender.refresh();
+
+        // 2 and 4 share 1 of 3 wish lists with product 3, product 1 shares 1 of 4
+        assertThat(recommender.similarProductIds(3L)).containsExactly(2, 4, 1);
+    }
+
+    @Test
+    void unchangedRefreshKeepsTheScores() {
+        recommender.refresh();
+
+        assertThat(recommender.similarProductIds(1L)).containsExactly(2, 3, 4);
+    }
+
+    private record Row(UUID wishListId, Timestamp updatedAt, Long productId) {
+    }
+
+    // Serves the recommender's queries from an in-memory wish_lists / wish_list_products join and
+    // wish_list_deletions; anything else (such as listing every wish list id) fails
+    private static final class FakeJdbcTemplate extends JdbcTemplate {
+
+        private final List<Row> rows = new ArrayList<>();
+        private final Map<UUID, Timestamp> tombstones = new HashMap<>();
+        private final List<Timestamp> tombstoneQueries = new ArrayList<>();
+        private Timestamp prunedBefore;
+
+        void put(UUID wishListId, LocalDateTime updatedAt, long... productIds) {
+            rows.removeIf(row -> row.wishListId().equals(wishListId));
+            for (long productId : productIds) {
+                rows.add(new Row(wishListId, Timestamp.valueOf(updatedAt), productId));
+            }
+        }
+
+        // What the wish_lists delete trigger does
+        void delete(UUID wishListId, LocalDateTime deletedAt) {
+            rows.removeIf(row -> row.wishListId().equals(wishListId));
+            tombstones.put(wishListId, Timestamp.valueOf(deletedAt));
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            try {
+                if (sql.contains("FROM wish_list_deletions")) {
+                    Timestamp since = (Timestamp) args[0];
+                    tombstoneQueries.add(since);
+                    for (Map.Entry<UUID, Timestamp> tombstone : tombstones.entrySet()) {
+                        if (!tombstone.getValue().before(since)) {
+                            handler.processRow(tombstone(tombstone.getKey(), tombstone.getValue()));
+                        }
+                    }
+                    return;
+                }
+                for (Row row : rows) {
+                    if (args.length == 0 || !row.updatedAt().before((Timestamp) args[0])) {
+                        handler.processRow(resultSet(row));
+                    }
+                }
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            assertThat(sql).contains("max(deleted_at) FROM wish_list_deletions");
+            return requiredType.cast(tombstones.values().stream().max(Timestamp::compareTo).orElse(null));
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            assertThat(sql).startsWith("DELETE FROM wish_list_deletions");
+            prunedBefore = (Timestamp) args[0];
+            int before = tombstones.size();
+            tombstones.values().removeIf(deletedAt -> deletedAt.before(prunedBefore));
+            return before - tombstones.size();
+        }
+
+        private static ResultSet tombstone(UUID wishListId, Timestamp deletedAt) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject("wish_list_id", UUID.class)).thenReturn(wishListId);
+            when(rs.getTimestamp("deleted_at")).thenReturn(deletedAt);
+            return rs;
+        }
+
+        private static ResultSet resultSet(Row row) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getObject("wish_list_id", UUID.class)).thenReturn(row.wishListId());
+            when(rs.getLong("product_id")).thenReturn(row.productId());
+            when(rs.wasNull()).thenReturn(false);
+            when(rs.getTimestamp("updated_at")).thenReturn(row.updatedAt());
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.capstone.shoppingcart.services.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTest {
+
+    // Added best-first: the insertion order is the rank
+    private static PrefixTrie<String> trie(int k) {
+        PrefixTrie.Builder<String> builder = new PrefixTrie.Builder<>(k);
+        builder.add("wireless mouse", List.of("wireless mouse", "mouse"));
+        builder.add("wired keyboard", List.of("wired keyboard", "keyboard"));
+        builder.add("mouse pad", List.of("mouse pad", "pad"));
+        builder.add("wireless headset", List.of("wireless headset", "headset"));
+        return builder.build();
+    }
+
+    @Test
+    void returnsMatchesInRankOrder() {
+        assertThat(trie(5).lookup("wire", 10)).containsExactly("wireless mouse", "wired keyboard", "wireless headset");
+        assertThat(trie(5).lookup("wireless", 10)).containsExactly("wireless mouse", "wireless headset");
+    }
+
+    @Test
+    void entryReachedThroughSeveralKeysIsListedOnce() {
+        assertThat(trie(5).lookup("mouse", 10)).containsExactly("wireless mouse", "mouse pad");
+    }
+
+    @Test
+    void resultsAreCappedByKAndLimit() {
+        assertThat(trie(2).lookup("wire", 10)).containsExactly("wireless mouse", "wired keyboard");
+        assertThat(trie(5).lookup("wire", 1)).containsExactly("wireless mouse");
+    }
+
+    @Test
+    void emptyPrefixReturnsTheOverallTop() {
+        assertThat(trie(3).lookup("", 10)).containsExactly("wireless mouse", "wired keyboard", "mouse pad");
+    }
+
+    @Test
+    void unknownPrefixReturnsNothing() {
+        assertThat(trie(5).lookup("wx", 10)).isEmpty();
+        assertThat(trie(5).lookup("wireless mousepad", 10)).isEmpty();
+    }
+
+    @Test
+    void keysAreTruncatedToTheMaximumLength() {
+        String longName = "a".repeat(40);
+        PrefixTrie.Builder<String> builder = new PrefixTrie.Builder<>(5);
+        builder.add(longName, List.of(longName));
+        PrefixTrie<String> trie = builder.build();
+
+        assertThat(trie.lookup("a".repeat(32), 10)).containsExactly(longName);
+        assertThat(trie.lookup("a".repeat(40) + "b", 10)).containsExactly(longName);
+    }
+}
@@ -0,0 +1,181 @@
+package com.capstone.shoppingcart.services.search;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.events.ProductCatalogChangedEvent;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productRepository);
+
+    @BeforeEach
+    void buildIndex() {
+        when(productRepository.findAllDtos()).thenReturn(List.of(
+                product(1L, "Wireless Mouse", "Ergonomic mouse with a USB receiver", 10L),
+                product(2L, "Mouse Pad", "Cloth pad for any wireless mouse", 10L),
+                product(3L, "Mechanical Keyboard", "Wired keyboard with brown switches", 10L),
+                product(4L, "Gaming Headset", "Wireless headset with a boom microphone", 20L)));
+        index.rebuild();
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        assertThat(ids(index.search("wireless", null, PageRequest.of(0, 10)).getContent()))
+                .containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertThat(ids(index.search("wireless headset", null, PageRequest.of(0, 10)).getContent()))
+                .containsExactly(4L);
+        assertThat(index.search("wireless keyboard", null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        assertThat(ids(index.search("mechanical keyb", null, PageRequest.of(0, 10)).getContent()))
+                .containsExactly(3L);
+        // Only the last term is a prefix
+        assertThat(index.search("keyb mechanical", null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void categoryFilterAndPagingApplyAfterRanking() {
+        var page = index.search("wireless", 10L, PageRequest.of(1, 1));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(ids(page.getContent())).containsExactly(2L);
+    }
+
+    @Test
+    void scrollContinuesAfterTheLastScoreAndId() {
+        List<ProductSearchIndex.ScoredProduct> first = index.scroll("wireless", null, null, null, 2);
+        ProductSearchIndex.ScoredProduct last = first.get(first.size() - 1);
+
+        List<ProductSearchIndex.ScoredProduct> next = index.scroll("wireless", null, last.score(), last.product().getId(), 2);
+
+        assertThat(first).extracting(scored -> scored.product().getId()).containsExactly(1L, 2L);
+        assertThat(next).extracting(scored -> scored.product().getId()).containsExactly(4L);
+    }
+
+    @Test
+    void changedProductsAreReindexed() {
+        when(productRepository.findDtosByIdIn(any())).thenReturn(List.of(
+                product(2L, "Desk Mat", "Felt mat", 10L)));
+
+        index.onCatalogChanged(ProductCatalogChangedEvent.of(2L, 10L));
+
+        assertThat(ids(index.search("wireless", null, PageRequest.of(0, 10)).getContent())).containsExactly(1L, 4L);
+        assertThat(ids(index.search("desk", null, PageRequest.of(0, 10)).getContent())).containsExactly(2L);
+    }
+
+    @Test
+    void deletedProductsDisappear() {
+        when(productRepository.findDtosByIdIn(any())).thenReturn(List.of());
+
+        index.onCatalogChanged(new ProductCatalogChangedEvent(Set.of(3L), Set.of(10L), false));
+
+        assertThat(index.search("keyboard", null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void changeBeforeTheFirstBuildIsReplayedAfterIt() {
+        ProductSearchIndex fresh = new ProductSearchIndex(productRepository);
+        when(productRepository.findDtosByIdIn(Set.of(2L))).thenReturn(List.of(
+                product(2L, "Desk Mat", "Felt mat", 10L)));
+
+        fresh.onCatalogChanged(ProductCatalogChangedEvent.of(2L, 10L));
+        assertThat(fresh.isReady()).isFalse();
+        fresh.rebuild();
+
+        assertThat(fresh.isReady()).isTrue();
+        assertThat(ids(fresh.search("desk", null, PageRequest.of(0, 10)).getContent())).containsExactly(2L);
+    }
+
+    @Test
+    void changeDuringARebuildIsNotOverwrittenByItsSnapshot() {
+        List<ProductResponseDto> snapshot = List.of(product(2L, "Mouse Pad", "Cloth pad", 10L));
+        when(productRepository.findAllDtos()).thenAnswer(invocation -> {
+            // Committed after the snapshot was read, handled before it is swapped in
+            index.onCatalogChanged(ProductCatalogChangedEvent.of(2L, 10L));
+            return snapshot;
+        });
+        when(productRepository.findDtosByIdIn(Set.of(2L))).thenReturn(List.of(
+                product(2L, "Desk Mat", "Felt mat", 10L)));
+
+        index.rebuild();
+
+        assertThat(ids(index.search("desk", null, PageRequest.of(0, 10)).getContent())).containsExactly(2L);
+        assertThat(index.search("pad", null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void reloadDuringARebuildReadsTheCatalogAgain() {
+        AtomicInteger reads = new AtomicInteger();
+        when(productRepository.findAllDtos()).thenAnswer(invocation -> {
+            if (reads.getAndIncrement() == 0) {
+                index.onCatalogChanged(ProductCatalogChangedEvent.bulk(Set.of(10L)));
+                return List.of(product(1L, "Wireless Mouse", "", 10L));
+            }
+            return List.of(product(1L, "Wired Mouse", "", 10L));
+        });
+
+        index.rebuild();
+
+        assertThat(reads).hasValue(2);
+        assertThat(ids(index.search("wired", null, PageRequest.of(0, 10)).getContent())).containsExactly(1L);
+        assertThat(index.search("wireless", null, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void misspelledWordsAreCorrectedAgainstTheDictionary() {
+        assertThat(index.correct("wireles mouse", 0.3)).isEqualTo("wireless mouse");
+        assertThat(index.correct("mechanical keybord", 0.3)).isEqualTo("mechanical keyboard");
+    }
+
+    @Test
+    void correctedQueryFindsTheProducts() {
+        String corrected = index.correct("gamng headst", 0.3);
+
+        assertThat(corrected).isEqualTo("gaming headset");
+        assertThat(ids(index.search(corrected, null, PageRequest.of(0, 10)).getContent())).containsExactly(4L);
+    }
+
+    @Test
+    void noCorrectionForKnownWordsOrPrefixes() {
+        assertThat(index.correct("wireless mou", 0.3)).isNull();
+    }
+
+    @Test
+    void noCorrectionWhenAnyWordHasNoCloseTerm() {
+        assertThat(index.correct("wireles xqzj", 0.3)).isNull();
+        assertThat(index.correct("keybord", 0.9)).isNull();
+    }
+
+    static ProductResponseDto product(Long id, String name, String description, Long categoryId) {
+        return ProductResponseDto.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .price(10.0)
+                .categoryId(categoryId)
+                .build();
+    }
+
+    static List<Long> ids(List<ProductResponseDto> products) {
+        return products.stream().map(ProductResponseDto::getId).toList();
+    }
+}
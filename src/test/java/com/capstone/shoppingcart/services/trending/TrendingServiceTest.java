@@ -0,0 +1,141 @@
+package com.capstone.shoppingcart.services.trending;
+
+import com.capstone.shoppingcart.dtos.ProductResponseDto;
+import com.capstone.shoppingcart.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrendingServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final TrendingService trendingService = new TrendingService(jdbcTemplate, productRepository);
+
+    // Bucket rows {productId, bucket, views, cartAdds} and popularity rows {cartAdds, productId} per flush
+    private final List<List<Object[]>> bucketBatches = Collections.synchronizedList(new ArrayList<>());
+    private final List<List<Object[]>> popularityBatches = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trendingService, "halfLife", Duration.ofHours(6));
+        ReflectionTestUtils.setField(trendingService, "window", Duration.ofHours(48));
+        ReflectionTestUtils.setField(trendingService, "cartAddWeight", 5.0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            (sql.startsWith("INSERT INTO product_activity_buckets") ? bucketBatches : popularityBatches).add(rows);
+            return new int[rows.size()];
+        });
+    }
+
+    @Test
+    void flushWritesTheCountsGatheredSinceTheLastOne() {
+        trendingService.recordView(1L);
+        trendingService.recordView(1L);
+        trendingService.recordCartAdd(1L);
+        trendingService.recordView(2L);
+
+        trendingService.flush();
+
+        assertThat(counts(bucketBatches.get(0))).containsOnly(
+                Map.entry(1L, List.of(2L, 1L)),
+                Map.entry(2L, List.of(1L, 0L)));
+        assertThat(popularityBatches.get(0)).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(1L, 1L));
+    }
+
+    @Test
+    void countsAreNotWrittenTwice() {
+        trendingService.recordView(1L);
+        trendingService.flush();
+        trendingService.flush();
+        trendingService.recordView(2L);
+        trendingService.flush();
+
+        assertThat(bucketBatches).hasSize(2);
+        assertThat(counts(bucketBatches.get(1))).containsOnly(Map.entry(2L, List.of(1L, 0L)));
+    }
+
+    @Test
+    void incrementsRacingAFlushAreNeverLost() throws Exception {
+        int threads = 4;
+        int viewsPerThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < viewsPerThread; i++) {
+                        trendingService.recordView((long) (i % 8));
+                    }
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                while (recording.get()) {
+                    trendingService.flush();
+                }
+            });
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        trendingService.flush();
+
+        long flushedViews = bucketBatches.stream()
+                .flatMap(List::stream)
+                .mapToLong(row -> (Long) row[2])
+                .sum();
+        assertThat(flushedViews).isEqualTo((long) threads * viewsPerThread);
+    }
+
+    @Test
+    void trendingListFollowsTheRankedIdsAndSkipsDeletedProducts() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(3L, 1L, 2L));
+        when(productRepository.findDtosByIdIn(List.of(3L, 1L, 2L))).thenReturn(List.of(product(1L), product(3L)));
+
+        trendingService.flushAndRecompute();
+
+        assertThat(trendingService.getTrendingProducts(10)).extracting(ProductResponseDto::getId).containsExactly(3L, 1L);
+        assertThat(trendingService.getTrendingProducts(1)).extracting(ProductResponseDto::getId).containsExactly(3L);
+    }
+
+    // productId -> [views, cartAdds]
+    private static Map<Long, List<Long>> counts(List<Object[]> rows) {
+        Map<Long, List<Long>> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], List.of((Long) row[2], (Long) row[3]));
+        }
+        return counts;
+    }
+
+    private static ProductResponseDto product(Long id) {
+        return ProductResponseDto.builder().id(id).name("Product " + id).build();
+    }
+}